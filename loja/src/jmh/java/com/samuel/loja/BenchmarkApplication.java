@@ -0,0 +1,25 @@
+package com.samuel.loja;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the whole application for the benchmarks that measure beans as they are wired: the test
+ * profile's H2, seeded by import.sql, on a random port and with quiet logs.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(LojaApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:benchmark",
+                "spring.h2.console.enabled=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+    }
+}
@@ -0,0 +1,113 @@
+package com.samuel.loja.config;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.DefaultOAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
+
+import com.samuel.loja.BenchmarkApplication;
+import com.samuel.loja.config.keys.CachingJwtDecoder;
+
+/**
+ * Access token issue and verification through the beans of {@link AuthorizationServerConfig}: the
+ * token generator with its customizer, and the resource server's decoder, both with the token already
+ * cached (a client reusing its token) and without. {@code JwtSignatureBenchmark} compares the
+ * signature algorithms alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private OAuth2TokenGenerator<? extends OAuth2Token> tokenGenerator;
+    private CachingJwtDecoder jwtDecoder;
+    private OAuth2TokenContext tokenContext;
+    private String token;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        context = BenchmarkApplication.start();
+        tokenGenerator = context.getBean(OAuth2TokenGenerator.class);
+        jwtDecoder = (CachingJwtDecoder) context.getBean(JwtDecoder.class);
+
+        String clientId = context.getEnvironment().getProperty("security.client-id");
+        RegisteredClient client = context.getBean(RegisteredClientRepository.class).findByClientId(clientId);
+        AuthorizationServerSettings settings = context.getBean(AuthorizationServerSettings.class);
+        // set per request by the authorization server's filters, the issuer claim comes from it
+        AuthorizationServerContext serverContext = new AuthorizationServerContext() {
+
+            @Override
+            public String getIssuer() {
+                return "http://localhost:8080";
+            }
+
+            @Override
+            public AuthorizationServerSettings getAuthorizationServerSettings() {
+                return settings;
+            }
+        };
+        tokenContext = DefaultOAuth2TokenContext.builder()
+            .registeredClient(client)
+            .authorizationServerContext(serverContext)
+            .principal(UsernamePasswordAuthenticationToken.authenticated("maria@gmail.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_OPERATOR"), new SimpleGrantedAuthority("ROLE_ADMIN"))))
+            .authorizedScopes(Set.of("read", "write"))
+            .authorizationGrantType(new AuthorizationGrantType("password"))
+            .tokenType(OAuth2TokenType.ACCESS_TOKEN)
+            .build();
+        token = issue().getTokenValue();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OAuth2Token issue() {
+        return tokenGenerator.generate(tokenContext);
+    }
+
+    @Benchmark
+    public Jwt decodeCached() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        jwtDecoder.getCache().invalidateAll();
+        return jwtDecoder.decode(token);
+    }
+}
@@ -0,0 +1,88 @@
+package com.samuel.loja.config.keys;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.jwk.JWK;
+
+/**
+ * Sign (one per login) and verify (one per authenticated request) throughput of each
+ * {@code security.jwt.algorithm}, through the same encoder and decoder the application uses and
+ * with the claims our access tokens carry. The setup prints the token size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSignatureBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private SigningAlgorithm algorithm;
+
+    private SigningKeyJwtEncoder encoder;
+    private NimbusJwtDecoder decoder;
+    private JwtEncoderParameters parameters;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SigningKeyManager keyManager = new SigningKeyManager(algorithm, null, Duration.ZERO, Duration.ZERO,
+            Duration.ofDays(1), Clock.systemUTC());
+        JWK key = keyManager.getSigningKey();
+        encoder = new SigningKeyJwtEncoder(keyManager);
+        decoder = new NimbusJwtDecoder(new SigningKeyJwtProcessor(keyManager));
+
+        Instant issuedAt = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+            .issuer("http://localhost:8080")
+            .subject("maria@gmail.com")
+            .audience(List.of("myclientid"))
+            .issuedAt(issuedAt)
+            .notBefore(issuedAt)
+            .expiresAt(issuedAt.plus(1, ChronoUnit.DAYS))
+            .claim("scope", Set.of("read", "write"))
+            .claim("authorities", List.of("ROLE_OPERATOR", "ROLE_ADMIN"))
+            .claim("username", "maria@gmail.com")
+            .build();
+        parameters = JwtEncoderParameters.from(JwsHeader.with(algorithm).keyId(key.getKeyID()).build(), claims);
+
+        token = sign().getTokenValue();
+        System.out.printf("%n%s token: %d bytes, signature %d bytes%n", algorithm, token.length(),
+            token.length() - token.lastIndexOf('.') - 1);
+    }
+
+    @Benchmark
+    public Jwt sign() {
+        return encoder.encode(parameters);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return decoder.decode(token);
+    }
+}
@@ -0,0 +1,76 @@
+package com.samuel.loja.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samuel.loja.entities.Category;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.entities.Role;
+import com.samuel.loja.entities.User;
+
+/**
+ * Entity to DTO mapping, run once per row of every listing and detail response: the list item,
+ * the product detail with its categories (and the entity tag built from them) and the user profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private Product product;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Instant now = Instant.now();
+        product = new Product(1L, "PC Gamer Alfa", "Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+            new BigDecimal("1850.0"), "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/7-big.jpg", now);
+        product.setVersion(3L);
+        product.setCreatedAt(now);
+        for (long id = 1; id <= 3; id++) {
+            Category category = new Category(id, "Categoria " + id);
+            category.setVersion(0L);
+            category.setCreatedAt(now);
+            product.getCategories().add(category);
+        }
+
+        user = new User();
+        user.setId(2L);
+        user.setFirstName("Maria");
+        user.setLastName("Green");
+        user.setEmail("maria@gmail.com");
+        user.addRole(new Role(1L, "ROLE_OPERATOR"));
+        user.addRole(new Role(2L, "ROLE_ADMIN"));
+    }
+
+    @Benchmark
+    public ProductListDto productListDto() {
+        return new ProductListDto(product);
+    }
+
+    @Benchmark
+    public ProductDto productDto() {
+        return new ProductDto(product, product.getCategories());
+    }
+
+    @Benchmark
+    public UserDto userDto() {
+        return new UserDto(user);
+    }
+}
@@ -0,0 +1,65 @@
+package com.samuel.loja.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialization of the {@code GET /products} body, a {@code Page<ProductListDto>} with its paging
+ * metadata, by an ObjectMapper built the way Spring Boot builds the application's. The setup prints
+ * the body size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPageJsonBenchmark {
+
+    // the default linesPerPage and a large page
+    @Param({"12", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<ProductListDto> page;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductListDto> content = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            content.add(new ProductListDto(id, "PC Gamer " + id, new BigDecimal("1200.0").add(BigDecimal.valueOf(id)),
+                "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/" + id + "-big.jpg"));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize, Sort.by("name")), 100_000);
+        System.out.printf("%n%d products: %d bytes%n", pageSize, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,103 @@
+package com.samuel.loja.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.samuel.loja.BenchmarkApplication;
+import com.samuel.loja.dto.ProductListDto;
+
+/**
+ * A product list page loaded through full entities, then mapped, against the
+ * {@link ProductRepository#searchProductList} projection, over products with 8 KB descriptions.
+ * The gc profiler of the benchmark profile reports the heap allocated per page
+ * ({@code gc.alloc.rate.norm}), which includes the description strings the entity read needs
+ * and the projection never materializes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductListQueryBenchmark {
+
+    // after the ids of import.sql
+    private static final long FIRST_ID = 1000;
+    private static final int PRODUCTS = 2_000;
+    private static final int DESCRIPTION_LENGTH = 8 * 1024;
+    private static final int PAGE_SIZE = 48;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository repository;
+    private TransactionTemplate readOnly;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        repository = context.getBean(ProductRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductListDto> entityPage() {
+        PageRequest page = randomPage();
+        return readOnly.execute(status -> repository.findAll(page).map(ProductListDto::new).getContent());
+    }
+
+    @Benchmark
+    public List<ProductListDto> projectionPage() {
+        PageRequest page = randomPage();
+        return readOnly.execute(status -> repository.searchProductList(page).getContent());
+    }
+
+    private PageRequest randomPage() {
+        return PageRequest.of(random.nextInt(PRODUCTS / PAGE_SIZE), PAGE_SIZE);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        String description = "x".repeat(DESCRIPTION_LENGTH);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> categories = new ArrayList<>();
+        for (long id = FIRST_ID; id < FIRST_ID + PRODUCTS; id++) {
+            rows.add(new Object[] {id, "Product " + id, description, BigDecimal.valueOf(100 + id),
+                "https://img.com.br/" + id + ".jpg", now, now});
+            categories.add(new Object[] {id, 1L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date, created_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", categories);
+    }
+}
@@ -0,0 +1,116 @@
+package com.samuel.loja.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.samuel.loja.BenchmarkApplication;
+import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.ProductFilter.CategoryMatch;
+
+/**
+ * Latency (sample mode reports p50/p99) of the catalog reads behind {@code GET /products} and
+ * {@code GET /products/{id}}, against the application's H2 with {@code products} rows added to the
+ * seed, each in one to three of its categories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductRepositoryBenchmark {
+
+    private static final String[] WORDS = {
+        "notebook", "smart", "tv", "pc", "gamer", "monitor", "teclado", "mouse", "cadeira", "mesa",
+        "fone", "bluetooth", "camera", "impressora", "roteador", "tablet", "celular", "caixa", "som", "led"
+    };
+    // after the ids of import.sql
+    private static final long FIRST_ID = 1000;
+    private static final int PAGE_SIZE = 12;
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository repository;
+    private final Random random = new Random(42);
+    private ProductFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        repository = context.getBean(ProductRepository.class);
+        seed(context.getBean(JdbcTemplate.class));
+        filter = new ProductFilter("gamer", List.of(3L), CategoryMatch.ANY, new BigDecimal("500"), new BigDecimal("3000"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ProductListDto> listPage() {
+        int pages = products / PAGE_SIZE;
+        return repository.searchProductList(PageRequest.of(random.nextInt(pages), PAGE_SIZE, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Page<ProductListDto> filterPage() {
+        return repository.findFiltered(filter, PageRequest.of(random.nextInt(10), PAGE_SIZE, Sort.by("price")));
+    }
+
+    @Benchmark
+    public Optional<Product> findByIdWithCategories() {
+        return repository.searchByIdWithCategories(FIRST_ID + random.nextInt(products));
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random seedRandom = new Random(42);
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> categories = new ArrayList<>();
+        for (long id = FIRST_ID; id < FIRST_ID + products; id++) {
+            String name = WORDS[seedRandom.nextInt(WORDS.length)] + " " + WORDS[seedRandom.nextInt(WORDS.length)] + " " + id;
+            BigDecimal price = BigDecimal.valueOf(50 + seedRandom.nextInt(500_000), 2);
+            rows.add(new Object[] {id, name, "Lorem ipsum dolor sit amet, consectetur adipiscing elit.", price,
+                "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/1-big.jpg", now, now});
+            int first = 1 + seedRandom.nextInt(3);
+            int count = 1 + seedRandom.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                categories.add(new Object[] {id, (long) 1 + (first + i) % 3});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date, created_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", categories);
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
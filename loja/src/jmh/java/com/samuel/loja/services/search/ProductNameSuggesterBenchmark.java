@@ -0,0 +1,78 @@
+package com.samuel.loja.services.search;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup latency of the name suggester (sample mode reports p50/p99) over a synthetic catalog.
+ * The setup also prints the retained heap per product, measured around building the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductNameSuggesterBenchmark {
+
+    private static final String[] WORDS = {
+        "notebook", "smart", "tv", "pc", "gamer", "monitor", "teclado", "mouse", "cadeira", "mesa",
+        "fone", "bluetooth", "camera", "impressora", "roteador", "tablet", "celular", "caixa", "som", "led",
+        "ultra", "pro", "max", "mini", "plus", "slim", "wireless", "usb", "hd", "ssd"
+    };
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private ProductNameSuggester suggester;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+
+        long before = usedHeap();
+        suggester = new ProductNameSuggester();
+        for (long id = 1; id <= products; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            suggester.put(id, name);
+        }
+        long after = usedHeap();
+        System.out.printf("%n%d products, ~%d bytes per product%n", products, (after - before) / products);
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            prefixes[i] = word.substring(0, 1 + random.nextInt(word.length()));
+        }
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return suggester.suggest(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,41 @@
+package com.samuel.loja.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+public record LoadReport(double targetRate, double durationSeconds, List<ScenarioResult> scenarios) {
+
+    public ScenarioResult scenario(String name) {
+        return scenarios.stream()
+            .filter(s -> s.name().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new NoSuchElementException(name));
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%nOpen model at %.0f req/s for %.0f s%n", targetRate, durationSeconds);
+        out.printf("%-22s %8s %8s %7s %8s %8s %8s %8s %8s %8s%n",
+            "endpoint", "requests", "req/s", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (ScenarioResult s : scenarios) {
+            out.printf("%-22s %8d %8.1f %7d %8d %8.1f %8.1f %8.1f %8.1f %8.1f%n", s.endpoint(), s.requests(),
+                s.throughput(), s.errors(), s.dropped(), s.p50(), s.p90(), s.p99(), s.p999(), s.max());
+            if (s.firstError() != null) {
+                out.printf("  first error: %s%n", s.firstError());
+            }
+        }
+    }
+
+    public void write(Path path, ObjectMapper objectMapper) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), this);
+    }
+}
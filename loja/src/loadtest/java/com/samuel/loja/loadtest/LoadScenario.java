@@ -0,0 +1,12 @@
+package com.samuel.loja.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.function.Supplier;
+
+/**
+ * One kind of request of the load mix: {@code weight} is its share of the arrivals and a response
+ * with another status than {@code expectedStatus} counts as an error. The supplier builds a new
+ * request per arrival, so each can pick its own page, product or token.
+ */
+public record LoadScenario(String name, String endpoint, int weight, int expectedStatus, Supplier<HttpRequest> request) {
+}
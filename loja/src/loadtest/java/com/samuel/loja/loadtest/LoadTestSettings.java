@@ -0,0 +1,50 @@
+package com.samuel.loja.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Properties;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * The {@code loadtest.*} settings: the defaults of {@code loadtest.properties}, overridden by system
+ * properties, so a run is tuned from the command line ({@code -Dloadtest.rate=200}). They are kept
+ * out of the Spring environment, where the test's own properties would win over the command line.
+ */
+final class LoadTestSettings {
+
+    private final Properties properties = new Properties();
+
+    LoadTestSettings() {
+        try (InputStream in = LoadTestSettings.class.getResourceAsStream("/loadtest.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith("loadtest."))
+            .forEach(name -> properties.setProperty(name, System.getProperty(name)));
+    }
+
+    String get(String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing setting " + name);
+        }
+        return value.trim();
+    }
+
+    int getInt(String name) {
+        return Integer.parseInt(get(name));
+    }
+
+    double getDouble(String name) {
+        return Double.parseDouble(get(name));
+    }
+
+    Duration getDuration(String name) {
+        return DurationStyle.detectAndParse(get(name));
+    }
+}
@@ -0,0 +1,157 @@
+package com.samuel.loja.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Sends requests at a fixed average rate with exponentially distributed gaps (Poisson arrivals),
+ * whatever the response times: an open model, like independent shoppers, unlike a fixed pool of
+ * clients that slows down with the server and hides its queueing.
+ *
+ * <p>The latency of each request is taken from the moment it was due, not from when it was sent,
+ * so time lost behind a late scheduler is counted too. Arrivals that find {@code maxInFlight}
+ * requests outstanding are not sent and are reported as dropped: they have no latency, so a
+ * saturated server shows up in the dropped count, not in the percentiles.
+ */
+public class OpenLoadGenerator {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int ERROR_BODY_LENGTH = 200;
+
+    private final HttpClient client;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    private final Random random = new Random(42);
+
+    private static class Stats {
+        final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+    }
+
+    public OpenLoadGenerator(HttpClient client, int maxInFlight, Duration requestTimeout) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /** Runs the mix for {@code warmup}, not measured, then for {@code duration}, and waits for the outstanding requests. */
+    public LoadReport run(List<LoadScenario> scenarios, double ratePerSecond, Duration warmup, Duration duration)
+            throws InterruptedException {
+        Map<LoadScenario, Stats> stats = new LinkedHashMap<>();
+        scenarios.forEach(scenario -> stats.put(scenario, new Stats()));
+        int totalWeight = scenarios.stream().mapToInt(LoadScenario::weight).sum();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long due = System.nanoTime();
+        while (true) {
+            due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            LoadScenario scenario = pick(scenarios, totalWeight);
+            Stats scenarioStats = stats.get(scenario);
+            boolean measured = due >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    scenarioStats.dropped.increment();
+                }
+                continue;
+            }
+            send(scenario, scenarioStats, due, measured, inFlight);
+        }
+
+        // every permit back: the last requests have completed or timed out. Otherwise they would still be
+        // recording into the histograms while the report is read, and be missing from it
+        if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException((maxInFlight - inFlight.availablePermits())
+                + " requests still outstanding " + requestTimeout + " after the run, past their timeout");
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        List<ScenarioResult> results = new ArrayList<>();
+        stats.forEach((scenario, s) -> results.add(result(scenario, s, seconds)));
+        return new LoadReport(ratePerSecond, seconds, results);
+    }
+
+    private void send(LoadScenario scenario, Stats stats, long due, boolean measured, Semaphore inFlight) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(scenario.request().get(), (name, value) -> true)
+                .timeout(requestTimeout)
+                .build();
+        } catch (RuntimeException e) {
+            inFlight.release();
+            if (measured) {
+                stats.errors.increment();
+                stats.firstError.compareAndSet(null, e.toString());
+            }
+            return;
+        }
+
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+            long latencyMicros = (System.nanoTime() - due) / 1000;
+            inFlight.release();
+            if (!measured) {
+                return;
+            }
+            stats.latencies.recordValue(Math.min(latencyMicros, HIGHEST_LATENCY_MICROS));
+            if (failure != null) {
+                stats.errors.increment();
+                stats.firstError.compareAndSet(null, failure.toString());
+            } else if (response.statusCode() != scenario.expectedStatus()) {
+                stats.errors.increment();
+                String body = response.body();
+                stats.firstError.compareAndSet(null, response.statusCode() + " "
+                    + (body.length() > ERROR_BODY_LENGTH ? body.substring(0, ERROR_BODY_LENGTH) : body));
+            }
+        });
+    }
+
+    private LoadScenario pick(List<LoadScenario> scenarios, int totalWeight) {
+        int ticket = random.nextInt(totalWeight);
+        for (LoadScenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("no scenario");
+    }
+
+    private static ScenarioResult result(LoadScenario scenario, Stats s, double seconds) {
+        Histogram h = s.latencies;
+        return new ScenarioResult(scenario.name(), scenario.endpoint(), h.getTotalCount(), s.errors.sum(),
+            s.dropped.sum(), h.getTotalCount() / seconds, millis(h.getValueAtPercentile(50)),
+            millis(h.getValueAtPercentile(90)), millis(h.getValueAtPercentile(99)),
+            millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()), s.firstError.get());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.samuel.loja.loadtest;
+
+/**
+ * What one scenario measured after the warmup. Latencies are in milliseconds, from the moment the
+ * request was due to be sent, so a generator or server falling behind shows up in them.
+ */
+public record ScenarioResult(String name, String endpoint, long requests, long errors, long dropped, double throughput,
+        double p50, double p90, double p99, double p999, double max, String firstError) {
+
+    /** Errors and dropped arrivals over every arrival of the scenario. */
+    public double errorRate() {
+        long arrivals = requests + dropped;
+        return arrivals == 0 ? 0 : (double) (errors + dropped) / arrivals;
+    }
+
+    /** Arrivals not sent because {@code max-in-flight} requests were outstanding, over every arrival. */
+    public double droppedRate() {
+        long arrivals = requests + dropped;
+        return arrivals == 0 ? 0 : (double) dropped / arrivals;
+    }
+}
@@ -0,0 +1,164 @@
+package com.samuel.loja.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the store's traffic mix against the application on H2 and fails when a scenario misses its
+ * SLO: anonymous catalog browsing, the profile page of signed-in users and admin product writes.
+ * Run with {@code mvn -Ploadtest verify}; the rate, duration, weights and SLOs are the
+ * {@code loadtest.*} settings, and the report is also written as JSON to {@code loadtest.report}.
+ */
+// every request comes from localhost: no per-address login limit
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "security.login.throttle.per-address=0",
+    "logging.level.root=WARN"})
+public class StoreLoadTest {
+
+    private static final String PASSWORD = "123456";
+    // products the update scenario cycles through, so two updates of the same row rarely overlap
+    private static final int UPDATED_PRODUCTS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LoadTestSettings settings = new LoadTestSettings();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void storeTrafficShouldMeetItsSlos() throws Exception {
+        String admin = token("maria@gmail.com");
+        List<String> users = List.of(token("alex@gmail.com"), admin);
+        List<Long> updated = new ArrayList<>();
+        for (int i = 0; i < UPDATED_PRODUCTS; i++) {
+            updated.add(createProduct(admin));
+        }
+        AtomicInteger next = new AtomicInteger();
+
+        List<LoadScenario> scenarios = List.of(
+            new LoadScenario("browse", "GET /products", settings.getInt("loadtest.weight.browse"), 200, () ->
+                get("/products?linesPerPage=12&page=" + ThreadLocalRandom.current().nextInt(3), null)),
+            new LoadScenario("me", "GET /users/me", settings.getInt("loadtest.weight.me"), 200, () ->
+                get("/users/me", users.get(ThreadLocalRandom.current().nextInt(users.size())))),
+            new LoadScenario("create", "POST /products", settings.getInt("loadtest.weight.create"), 201, () ->
+                send("POST", "/products", admin, product("Produto de carga"))),
+            new LoadScenario("update", "PUT /products/{id}", settings.getInt("loadtest.weight.update"), 200, () ->
+                send("PUT", "/products/" + updated.get(Math.floorMod(next.getAndIncrement(), updated.size())), admin,
+                    product("Produto atualizado"))));
+
+        OpenLoadGenerator generator = new OpenLoadGenerator(client, settings.getInt("loadtest.max-in-flight"),
+            settings.getDuration("loadtest.request-timeout"));
+        LoadReport report = generator.run(scenarios, settings.getDouble("loadtest.rate"),
+            settings.getDuration("loadtest.warmup"), settings.getDuration("loadtest.duration"));
+
+        report.print(System.out);
+        report.write(Path.of(settings.get("loadtest.report")), objectMapper);
+
+        double maxErrorRate = settings.getDouble("loadtest.slo.error-rate");
+        double maxDroppedRate = settings.getDouble("loadtest.slo.dropped-rate");
+        List<Executable> slos = new ArrayList<>();
+        for (ScenarioResult result : report.scenarios()) {
+            double p99 = settings.getDouble("loadtest.slo." + result.name() + ".p99");
+            slos.add(() -> assertTrue(result.requests() > 0, result.endpoint() + ": no request completed"));
+            slos.add(() -> assertTrue(result.p99() <= p99,
+                String.format("%s: p99 %.1f ms above the %.0f ms SLO", result.endpoint(), result.p99(), p99)));
+            slos.add(() -> assertTrue(result.errorRate() <= maxErrorRate,
+                String.format("%s: error rate %.2f%% above %.2f%% (%s)", result.endpoint(), result.errorRate() * 100,
+                    maxErrorRate * 100, result.firstError())));
+            // shed load is not a pass: those arrivals never reach the latency histogram
+            slos.add(() -> assertTrue(result.droppedRate() <= maxDroppedRate,
+                String.format("%s: %d arrivals (%.2f%%) dropped at loadtest.max-in-flight, above %.2f%%",
+                    result.endpoint(), result.dropped(), result.droppedRate() * 100, maxDroppedRate * 100)));
+        }
+        assertAll(slos);
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest send(String method, String path, String token, String body) {
+        return HttpRequest.newBuilder(uri(path))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private String product(String name) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                "name", name,
+                "description", "Gerado pelo teste de carga",
+                "price", 100 + ThreadLocalRandom.current().nextInt(5000),
+                "imgUrl", "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/1-big.jpg",
+                "date", Instant.now().plus(Duration.ofDays(1)).toString(),
+                "categories", List.of(Map.of("id", 1 + ThreadLocalRandom.current().nextInt(3)))));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long createProduct(String token) throws Exception {
+        HttpResponse<String> response = client.send(send("POST", "/products", token, product("Produto de carga")),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    private String token(String username) throws Exception {
+        String form = "grant_type=password"
+            + "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+            + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        String basic = Base64.getEncoder().encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(uri("/oauth2/token"))
+            .header("Authorization", "Basic " + basic)
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("access_token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -1,16 +1,21 @@
 package com.samuel.loja.config;
 
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
+import java.util.stream.Collectors;
 
+import com.samuel.loja.config.authorization.ClientSecretEncoder;
 import com.samuel.loja.config.customgrant.CustomPasswordAuthenticationConverter;
 import com.samuel.loja.config.customgrant.CustomPasswordAuthenticationProvider;
-import com.samuel.loja.config.customgrant.CustomUserAuthorities;
+import com.samuel.loja.config.customgrant.LoginThrottle;
+import com.samuel.loja.config.customgrant.PasswordHashingExecutor;
+import com.samuel.loja.config.customgrant.TokenErrorResponseHandler;
+import com.samuel.loja.config.keys.CachingJwtDecoder;
+import com.samuel.loja.config.keys.SigningAlgorithm;
+import com.samuel.loja.config.keys.SigningKeyJwtEncoder;
+import com.samuel.loja.config.keys.SigningKeyJwtProcessor;
+import com.samuel.loja.config.keys.SigningKeyManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -18,18 +23,25 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
 import org.springframework.security.oauth2.core.OAuth2Token;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationConsentService;
-import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
-import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.ClientSecretAuthenticationProvider;
 import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
@@ -43,18 +55,26 @@ import org.springframework.security.oauth2.server.authorization.token.Delegating
 import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
 import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
 import org.springframework.security.oauth2.server.authorization.token.OAuth2AccessTokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2RefreshTokenGenerator;
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
 import org.springframework.security.web.SecurityFilterChain;
 
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 @Configuration
 public class AuthorizationServerConfig {
 
+	private static final ClientSecretEncoder CLIENT_SECRET_ENCODER = new ClientSecretEncoder();
+
+	// the default of JwtTimestampValidator, shared with the decoder cache
+	private static final Duration JWT_CLOCK_SKEW = Duration.ofSeconds(60);
+
 	@Value("${security.client-id}")
 	private String clientId;
 
@@ -64,20 +84,51 @@ public class AuthorizationServerConfig {
 	@Value("${security.jwt.duration}")
 	private Integer jwtDurationSeconds;
 
+	@Value("${security.refresh-token.duration}")
+	private Integer refreshTokenDurationSeconds;
+
+	@Value("${security.jwt.cache.maximum-size}")
+	private Long jwtCacheMaximumSize;
+
 	@Autowired
 	private UserDetailsService userDetailsService;
 
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private SigningKeyManager signingKeyManager;
+
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+
+	@Autowired
+	private LoginThrottle loginThrottle;
+
 	@Bean
 	@Order(2)
-	public SecurityFilterChain asSecurityFilterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain asSecurityFilterChain(HttpSecurity http, OAuth2AuthorizationService authorizationService) throws Exception {
 
 		OAuth2AuthorizationServerConfiguration.applyDefaultSecurity(http);
 
+		CustomPasswordAuthenticationProvider passwordAuthenticationProvider = new CustomPasswordAuthenticationProvider(
+				authorizationService, tokenGenerator(), userDetailsService, passwordEncoder, passwordHashingExecutor, loginThrottle);
+		if (userDetailsService instanceof UserDetailsPasswordService userDetailsPasswordService) {
+			passwordAuthenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+		}
+
 		// @formatter:off
 		http.getConfigurer(OAuth2AuthorizationServerConfigurer.class)
+				.clientAuthentication(clientAuthentication -> clientAuthentication
+						.authenticationProviders(providers -> providers.forEach(provider -> {
+							if (provider instanceof ClientSecretAuthenticationProvider clientSecretProvider) {
+								clientSecretProvider.setPasswordEncoder(CLIENT_SECRET_ENCODER);
+							}
+						})))
 				.tokenEndpoint(tokenEndpoint -> tokenEndpoint
 						.accessTokenRequestConverter(new CustomPasswordAuthenticationConverter())
-						.authenticationProvider(new CustomPasswordAuthenticationProvider(authorizationService(), tokenGenerator(), userDetailsService, passwordEncoder())));
+						.authenticationProvider(passwordAuthenticationProvider)
+						.errorResponseHandler(new TokenErrorResponseHandler()));
 
 		http.oauth2ResourceServer(oauth2ResourceServer -> oauth2ResourceServer.jwt(Customizer.withDefaults()));
 		// @formatter:on
@@ -85,31 +136,23 @@ public class AuthorizationServerConfig {
 		return http.build();
 	}
 
-	@Bean
-	public OAuth2AuthorizationService authorizationService() {
-		return new InMemoryOAuth2AuthorizationService();
-	}
-
 	@Bean
 	public OAuth2AuthorizationConsentService oAuth2AuthorizationConsentService() {
 		return new InMemoryOAuth2AuthorizationConsentService();
 	}
 
-	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
-	}
-
 	@Bean
 	public RegisteredClientRepository registeredClientRepository() {
 		// @formatter:off
 		RegisteredClient registeredClient = RegisteredClient
-				.withId(UUID.randomUUID().toString())
+				// stable id: authorizations kept in a shared store reference the client by it
+				.withId(clientId)
 				.clientId(clientId)
-				.clientSecret(passwordEncoder().encode(clientSecret))
+				.clientSecret(CLIENT_SECRET_ENCODER.encode(clientSecret))
 				.scope("read")
 				.scope("write")
 				.authorizationGrantType(new AuthorizationGrantType("password"))
+				.authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
 				.tokenSettings(tokenSettings())
 				.clientSettings(clientSettings())
 				.build();
@@ -124,6 +167,9 @@ public class AuthorizationServerConfig {
 		return TokenSettings.builder()
 				.accessTokenFormat(OAuth2TokenFormat.SELF_CONTAINED)
 				.accessTokenTimeToLive(Duration.ofSeconds(jwtDurationSeconds))
+				.refreshTokenTimeToLive(Duration.ofSeconds(refreshTokenDurationSeconds))
+				// rotation: each refresh returns a new refresh token and the used one stops working
+				.reuseRefreshTokens(false)
 				.build();
 		// @formatter:on
 	}
@@ -140,57 +186,64 @@ public class AuthorizationServerConfig {
 
 	@Bean
 	public OAuth2TokenGenerator<? extends OAuth2Token> tokenGenerator() {
-		NimbusJwtEncoder jwtEncoder = new NimbusJwtEncoder(jwkSource());
-		JwtGenerator jwtGenerator = new JwtGenerator(jwtEncoder);
+		JwtGenerator jwtGenerator = new JwtGenerator(new SigningKeyJwtEncoder(signingKeyManager));
 		jwtGenerator.setJwtCustomizer(tokenCustomizer());
 		OAuth2AccessTokenGenerator accessTokenGenerator = new OAuth2AccessTokenGenerator();
-		return new DelegatingOAuth2TokenGenerator(jwtGenerator, accessTokenGenerator);
+		OAuth2RefreshTokenGenerator refreshTokenGenerator = new OAuth2RefreshTokenGenerator();
+		return new DelegatingOAuth2TokenGenerator(jwtGenerator, accessTokenGenerator, refreshTokenGenerator);
 	}
 
 	@Bean
 	public OAuth2TokenCustomizer<JwtEncodingContext> tokenCustomizer() {
 		return context -> {
-			OAuth2ClientAuthenticationToken principal = context.getPrincipal();
-			CustomUserAuthorities user = (CustomUserAuthorities) principal.getDetails();
-			List<String> authorities = user.getAuthorities().stream().map(x -> x.getAuthority()).toList();
+			// pinned once per token, so a key refresh between customizing and encoding does not mix keys
+			JWK signingKey = signingKeyManager.getSigningKey();
+			context.getJwsHeader()
+					.algorithm(SigningAlgorithm.of(signingKey))
+					.keyId(signingKey.getKeyID());
+
+			Authentication principal = context.getPrincipal();
 			if (context.getTokenType().getValue().equals("access_token")) {
+				// the principal of a refresh is the one stored at login: its roles may have changed since
+				Collection<? extends GrantedAuthority> granted = AuthorizationGrantType.REFRESH_TOKEN.equals(context.getAuthorizationGrantType())
+						? currentUser(principal.getName()).getAuthorities()
+						: principal.getAuthorities();
+				// a mutable list: the claims are serialized with the authorization and Jackson's allowlist rejects List.of
+				List<String> authorities = granted.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
 				// @formatter:off
 				context.getClaims()
 						.claim("authorities", authorities)
-						.claim("username", user.getUsername());
+						.claim("username", principal.getName());
 				// @formatter:on
 			}
 		};
 	}
 
-	@Bean
-	public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource) {
-		return OAuth2AuthorizationServerConfiguration.jwtDecoder(jwkSource);
+	private UserDetails currentUser(String username) {
+		try {
+			UserDetails user = userDetailsService.loadUserByUsername(username);
+			if (user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired()) {
+				return user;
+			}
+		} catch (UsernameNotFoundException e) {
+			// reported as an invalid grant below
+		}
+		throw new OAuth2AuthenticationException(new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT,
+				"The user of the refresh token is no longer active.", null));
 	}
 
 	@Bean
-	public JWKSource<SecurityContext> jwkSource() {
-		RSAKey rsaKey = generateRsa();
-		JWKSet jwkSet = new JWKSet(rsaKey);
-		return (jwkSelector, securityContext) -> jwkSelector.select(jwkSet);
-	}
-
-	private static RSAKey generateRsa() {
-		KeyPair keyPair = generateRsaKey();
-		RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
-		RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
-		return new RSAKey.Builder(publicKey).privateKey(privateKey).keyID(UUID.randomUUID().toString()).build();
+	public JwtDecoder jwtDecoder(MeterRegistry registry) {
+		// tokens signed before an algorithm change stay valid until their key retires
+		NimbusJwtDecoder decoder = new NimbusJwtDecoder(new SigningKeyJwtProcessor(signingKeyManager));
+		decoder.setJwtValidator(new JwtTimestampValidator(JWT_CLOCK_SKEW));
+		CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(decoder, jwtCacheMaximumSize, JWT_CLOCK_SKEW);
+		CaffeineCacheMetrics.monitor(registry, cachingDecoder.getCache(), "jwt.decoder");
+		return cachingDecoder;
 	}
 
-	private static KeyPair generateRsaKey() {
-		KeyPair keyPair;
-		try {
-			KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-			keyPairGenerator.initialize(2048);
-			keyPair = keyPairGenerator.generateKeyPair();
-		} catch (Exception ex) {
-			throw new IllegalStateException(ex);
-		}
-		return keyPair;
+	@Bean
+	public JWKSource<SecurityContext> jwkSource() {
+		return (jwkSelector, securityContext) -> jwkSelector.select(signingKeyManager.getVerificationKeys());
 	}
 }
@@ -0,0 +1,97 @@
+package com.samuel.loja.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.dto.UserDto;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String PRODUCTS = "products";
+	public static final String CATEGORIES = "categories";
+	// UserDto by email, the profile behind /users/me
+	public static final String USERS = "users";
+	// UserDetails (password hash and authorities) by email, read on every login
+	public static final String USER_DETAILS = "userDetails";
+
+	@Value("${loja.cache.catalog.maximum-size}")
+	private Long catalogMaximumSize;
+
+	@Value("${loja.cache.catalog.ttl}")
+	private Duration catalogTtl;
+
+	@Value("${loja.cache.users.maximum-size}")
+	private Long usersMaximumSize;
+
+	@Value("${loja.cache.users.ttl}")
+	private Duration usersTtl;
+
+	@Value("${loja.cache.user-details.ttl}")
+	private Duration userDetailsTtl;
+
+	@Bean
+	public CacheManager cacheManager() {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+			// the catalog and profile DTOs are mutable: their caches keep and hand out copies
+			@Override
+			protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+				if (PRODUCTS.equals(name) || CATEGORIES.equals(name) || USERS.equals(name)) {
+					return new CopyingCaffeineCache(name, cache, CacheConfig::copyValue);
+				}
+				return super.adaptCaffeineCache(name, cache);
+			}
+		};
+		// only the caches registered below exist, no unbounded cache is created on demand
+		cacheManager.setCacheNames(List.of());
+		cacheManager.registerCustomCache(PRODUCTS, catalogCache().build());
+		cacheManager.registerCustomCache(CATEGORIES, catalogCache().build());
+		cacheManager.registerCustomCache(USERS, Caffeine.newBuilder()
+			.maximumSize(usersMaximumSize)
+			.expireAfterWrite(usersTtl)
+			.recordStats()
+			.build());
+		// short lived: credentials changed outside UserService are picked up within the ttl
+		cacheManager.registerCustomCache(USER_DETAILS, Caffeine.newBuilder()
+			.maximumSize(usersMaximumSize)
+			.expireAfterWrite(userDetailsTtl)
+			.recordStats()
+			.build());
+
+		// puts and evictions are applied after commit, so a rolled back write never reaches the cache
+		return new TransactionAwareCacheManagerProxy(cacheManager);
+	}
+
+	private static Object copyValue(Object value) {
+		if (value instanceof ProductDto product) {
+			return new ProductDto(product);
+		}
+		if (value instanceof CategoryDto category) {
+			return new CategoryDto(category);
+		}
+		if (value instanceof UserDto user) {
+			return new UserDto(user);
+		}
+		return value;
+	}
+
+	private Caffeine<Object, Object> catalogCache() {
+		return Caffeine.newBuilder()
+			.maximumSize(catalogMaximumSize)
+			.expireAfterWrite(catalogTtl)
+			.recordStats();
+	}
+}
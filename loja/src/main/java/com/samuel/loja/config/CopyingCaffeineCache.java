@@ -0,0 +1,51 @@
+package com.samuel.loja.config;
+
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caffeine cache for mutable values: it stores a copy of what is put and hands out a copy of what
+ * it holds, so a caller changing a returned DTO cannot change the cached one seen by the others.
+ */
+class CopyingCaffeineCache extends CaffeineCache {
+
+	private final UnaryOperator<Object> copier;
+
+	CopyingCaffeineCache(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier) {
+		super(name, cache);
+		this.copier = copier;
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		return copy(super.lookup(key));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return (T) copy(super.get(key, valueLoader));
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		super.put(key, copy(value));
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		return super.putIfAbsent(key, copy(value));
+	}
+
+	@Nullable
+	private Object copy(@Nullable Object value) {
+		return value != null ? copier.apply(value) : null;
+	}
+}
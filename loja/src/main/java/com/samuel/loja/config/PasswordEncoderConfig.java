@@ -0,0 +1,108 @@
+package com.samuel.loja.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * User passwords are stored as {@code {bcrypt}<hash>}. The BCrypt cost is either set with
+ * {@code security.password.bcrypt.strength} or, when that is 0, calibrated at startup to the highest
+ * cost whose hash takes no longer than {@code security.password.bcrypt.target} on this hardware.
+ *
+ * <p>Hashes with another cost, and the unprefixed ones stored before (the seed users in
+ * {@code import.sql}), still match. Weaker and unprefixed ones are rehashed on the next successful
+ * login. Stronger ones are only rehashed down with {@code security.password.bcrypt.rehash-stronger}
+ * and a configured cost: nodes on different hardware, or a restart measuring a little differently,
+ * would otherwise rehash the same passwords back and forth.
+ */
+@Slf4j
+@Configuration
+public class PasswordEncoderConfig {
+
+	static final String BCRYPT = "bcrypt";
+	// the cost of the existing hashes, calibration never goes below it
+	static final int MINIMUM_STRENGTH = 10;
+	static final int MAXIMUM_STRENGTH = 16;
+
+	@Value("${security.password.bcrypt.strength}")
+	private int strength;
+
+	@Value("${security.password.bcrypt.target}")
+	private Duration target;
+
+	@Value("${security.password.bcrypt.rehash-stronger:false}")
+	private boolean rehashStronger;
+
+	@Bean
+	public PasswordEncoder passwordEncoder() {
+		boolean configured = strength > 0;
+		int cost = configured ? strength : calibrate(target);
+		log.info("BCrypt cost {} ({})", cost, configured ? "configured" : "calibrated for " + target.toMillis() + " ms per hash");
+		if (rehashStronger && !configured) {
+			log.warn("security.password.bcrypt.rehash-stronger is ignored with a calibrated cost");
+		}
+		return passwordEncoder(cost, rehashStronger && configured);
+	}
+
+	static PasswordEncoder passwordEncoder(int cost, boolean rehashStronger) {
+		PasswordEncoder bcrypt = new CostBCryptPasswordEncoder(cost, rehashStronger);
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+		encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+		return encoder;
+	}
+
+	/** The highest cost, within bounds, whose hash takes no longer than the target; each step doubles the time. */
+	static int calibrate(Duration target) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MINIMUM_STRENGTH);
+		String password = UUID.randomUUID().toString();
+		encoder.encode(password);
+		long nanos = Long.MAX_VALUE;
+		for (int i = 0; i < 2; i++) {
+			long start = System.nanoTime();
+			encoder.encode(password);
+			nanos = Math.min(nanos, System.nanoTime() - start);
+		}
+
+		int cost = MINIMUM_STRENGTH;
+		while (cost < MAXIMUM_STRENGTH && nanos * 2 <= target.toNanos()) {
+			nanos *= 2;
+			cost++;
+		}
+		return cost;
+	}
+
+	/**
+	 * BCrypt only asks to rehash weaker hashes. With {@code rehashStronger} a stronger one is rehashed
+	 * too, so lowering the setting also brings login capacity back.
+	 */
+	static class CostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+		private final int cost;
+		private final boolean rehashStronger;
+
+		CostBCryptPasswordEncoder(int cost, boolean rehashStronger) {
+			super(cost);
+			this.cost = cost;
+			this.rehashStronger = rehashStronger;
+		}
+
+		@Override
+		public boolean upgradeEncoding(String encodedPassword) {
+			if (super.upgradeEncoding(encodedPassword)) {
+				return true;
+			}
+			// $2a$10$..., the cost is always two digits
+			return rehashStronger && encodedPassword != null && encodedPassword.length() > 6
+				&& Integer.parseInt(encodedPassword.substring(4, 6)) > cost;
+		}
+	}
+}
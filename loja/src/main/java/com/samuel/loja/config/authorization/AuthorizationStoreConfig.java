@@ -0,0 +1,68 @@
+package com.samuel.loja.config.authorization;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Chooses where issued authorizations are kept ({@code security.authorization.store}): a bounded,
+ * expiring in-memory store for a single node, or the {@code oauth2_authorization} table when
+ * several nodes share the tokens.
+ */
+@Configuration
+public class AuthorizationStoreConfig {
+
+	public static final String CACHE_NAME = "oauth2.authorizations";
+
+	@Value("${security.jwt.duration}")
+	private Integer jwtDurationSeconds;
+
+	@Value("${security.authorization.maximum-size}")
+	private Long maximumSize;
+
+	@Value("${security.authorization.initialize-schema}")
+	private boolean initializeSchema;
+
+	@Bean
+	@ConditionalOnProperty(name = "security.authorization.store", havingValue = "memory", matchIfMissing = true)
+	public RevocableOAuth2AuthorizationService memoryAuthorizationService(MeterRegistry registry) {
+		var service = new CaffeineOAuth2AuthorizationService(maximumSize, Duration.ofSeconds(jwtDurationSeconds));
+		CaffeineCacheMetrics.monitor(registry, service.getCache(), CACHE_NAME);
+
+		return new TimedOAuth2AuthorizationService(service, registry, "memory");
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "security.authorization.store", havingValue = "jdbc")
+	public OAuth2AuthorizationSchemaInitializer authorizationSchemaInitializer(DataSource dataSource,
+			JdbcOperations jdbcOperations) {
+		return new OAuth2AuthorizationSchemaInitializer(dataSource, jdbcOperations, initializeSchema);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "security.authorization.store", havingValue = "jdbc")
+	public RevocableOAuth2AuthorizationService jdbcAuthorizationService(JdbcOperations jdbcOperations,
+			RegisteredClientRepository registeredClientRepository, MeterRegistry registry,
+			OAuth2AuthorizationSchemaInitializer schemaInitializer) {
+		var service = new JdbcRevocableOAuth2AuthorizationService(jdbcOperations, registeredClientRepository);
+
+		return new TimedOAuth2AuthorizationService(service, registry, "jdbc");
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "security.authorization.store", havingValue = "jdbc")
+	public JdbcOAuth2AuthorizationCleaner jdbcAuthorizationCleaner(JdbcOperations jdbcOperations, MeterRegistry registry,
+			OAuth2AuthorizationSchemaInitializer schemaInitializer) {
+		return new JdbcOAuth2AuthorizationCleaner(jdbcOperations, registry);
+	}
+}
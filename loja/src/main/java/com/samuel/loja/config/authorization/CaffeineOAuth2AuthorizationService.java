@@ -0,0 +1,188 @@
+package com.samuel.loja.config.authorization;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * {@link OAuth2AuthorizationService} kept in a bounded Caffeine cache. Each authorization expires
+ * together with its longest-lived token (after {@code defaultTtl} when it has none) and a token
+ * index answers lookups by token value directly, instead of the linear scan done by
+ * {@code InMemoryOAuth2AuthorizationService}.
+ */
+public class CaffeineOAuth2AuthorizationService implements RevocableOAuth2AuthorizationService {
+
+	private static final OAuth2TokenType STATE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+	private static final OAuth2TokenType CODE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+	private static final OAuth2TokenType ID_TOKEN = new OAuth2TokenType(OidcParameterNames.ID_TOKEN);
+
+	private final Cache<String, OAuth2Authorization> authorizations;
+	// token value -> authorization id
+	private final Cache<String, String> tokens;
+
+	public CaffeineOAuth2AuthorizationService(long maximumSize, Duration defaultTtl) {
+		this(maximumSize, defaultTtl, Ticker.systemTicker());
+	}
+
+	CaffeineOAuth2AuthorizationService(long maximumSize, Duration defaultTtl, Ticker ticker) {
+		this.tokens = Caffeine.newBuilder()
+			.maximumSize(maximumSize * 4)
+			.ticker(ticker)
+			.build();
+		this.authorizations = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfter(new AuthorizationExpiry(defaultTtl))
+			.ticker(ticker)
+			.executor(Runnable::run)
+			.removalListener((String id, OAuth2Authorization authorization, RemovalCause cause) -> {
+				if (authorization != null && cause != RemovalCause.REPLACED) {
+					tokens.invalidateAll(tokenValues(authorization));
+				}
+			})
+			.recordStats()
+			.build();
+	}
+
+	@Override
+	public void save(OAuth2Authorization authorization) {
+		Assert.notNull(authorization, "authorization cannot be null");
+		OAuth2Authorization previous = authorizations.getIfPresent(authorization.getId());
+		if (previous != null) {
+			tokens.invalidateAll(tokenValues(previous));
+		}
+		authorizations.put(authorization.getId(), authorization);
+		tokenValues(authorization).forEach(value -> tokens.put(value, authorization.getId()));
+	}
+
+	@Override
+	public void remove(OAuth2Authorization authorization) {
+		Assert.notNull(authorization, "authorization cannot be null");
+		authorizations.invalidate(authorization.getId());
+	}
+
+	@Nullable
+	@Override
+	public OAuth2Authorization findById(String id) {
+		Assert.hasText(id, "id cannot be empty");
+		return authorizations.getIfPresent(id);
+	}
+
+	@Nullable
+	@Override
+	public OAuth2Authorization findByToken(String token, @Nullable OAuth2TokenType tokenType) {
+		Assert.hasText(token, "token cannot be empty");
+		String id = tokens.getIfPresent(token);
+		if (id == null) {
+			return null;
+		}
+		OAuth2Authorization authorization = authorizations.getIfPresent(id);
+		return authorization != null && hasToken(authorization, token, tokenType) ? authorization : null;
+	}
+
+	// a scan of the whole store: users are changed rarely compared to the lookups by token
+	@Override
+	public int removeByPrincipalName(String principalName) {
+		Assert.hasText(principalName, "principalName cannot be empty");
+		List<String> ids = authorizations.asMap().values().stream()
+			.filter(authorization -> principalName.equals(authorization.getPrincipalName()))
+			.map(OAuth2Authorization::getId)
+			.toList();
+		authorizations.invalidateAll(ids);
+		return ids.size();
+	}
+
+	Cache<String, OAuth2Authorization> getCache() {
+		return authorizations;
+	}
+
+	private static boolean hasToken(OAuth2Authorization authorization, String token, @Nullable OAuth2TokenType tokenType) {
+		if (tokenType == null) {
+			return true;
+		}
+		if (STATE.equals(tokenType)) {
+			return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+		}
+		if (CODE.equals(tokenType)) {
+			return matches(authorization.getToken(OAuth2AuthorizationCode.class), token);
+		}
+		if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+			return matches(authorization.getToken(OAuth2AccessToken.class), token);
+		}
+		if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+			return matches(authorization.getToken(OAuth2RefreshToken.class), token);
+		}
+		if (ID_TOKEN.equals(tokenType)) {
+			return matches(authorization.getToken(OidcIdToken.class), token);
+		}
+		return false;
+	}
+
+	private static boolean matches(@Nullable OAuth2Authorization.Token<?> token, String value) {
+		return token != null && token.getToken().getTokenValue().equals(value);
+	}
+
+	private static List<String> tokenValues(OAuth2Authorization authorization) {
+		List<String> values = new ArrayList<>();
+		values.add(authorization.getAttribute(OAuth2ParameterNames.STATE));
+		for (OAuth2Authorization.Token<?> token : tokens(authorization)) {
+			values.add(token.getToken().getTokenValue());
+		}
+		values.removeIf(Objects::isNull);
+		return values;
+	}
+
+	private static List<OAuth2Authorization.Token<? extends AbstractOAuth2Token>> tokens(OAuth2Authorization authorization) {
+		List<OAuth2Authorization.Token<? extends AbstractOAuth2Token>> tokens = new ArrayList<>();
+		tokens.add(authorization.getToken(OAuth2AuthorizationCode.class));
+		tokens.add(authorization.getToken(OAuth2AccessToken.class));
+		tokens.add(authorization.getToken(OAuth2RefreshToken.class));
+		tokens.add(authorization.getToken(OidcIdToken.class));
+		tokens.removeIf(Objects::isNull);
+		return tokens;
+	}
+
+	private record AuthorizationExpiry(Duration defaultTtl) implements Expiry<String, OAuth2Authorization> {
+
+		@Override
+		public long expireAfterCreate(String id, OAuth2Authorization authorization, long currentTime) {
+			Instant now = Instant.now();
+			Instant expiresAt = tokens(authorization).stream()
+				.map(token -> token.getToken().getExpiresAt())
+				.filter(Objects::nonNull)
+				.max(Instant::compareTo)
+				.orElse(now.plus(defaultTtl));
+			return Math.max(0, Duration.between(now, expiresAt).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(String id, OAuth2Authorization authorization, long currentTime, long currentDuration) {
+			return expireAfterCreate(id, authorization, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String id, OAuth2Authorization authorization, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.samuel.loja.config.authorization;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Encoder for client secrets. The stored value is a salted {@code {bcrypt}} hash, so a leaked
+ * registered client cannot be brute-forced offline. Once a secret has matched it, the SHA-256 of
+ * that secret is remembered in memory and later requests are compared against it in constant time:
+ * a refresh or a login then pays BCrypt only for the user's password. The digest never leaves the
+ * process, which already holds the raw secret from its configuration.
+ */
+public class ClientSecretEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+	// encoded secret -> digest of the raw secret that matched it
+	private final Map<String, byte[]> verified = new ConcurrentHashMap<>();
+
+	@Override
+	public String encode(CharSequence rawSecret) {
+		return delegate.encode(rawSecret);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawSecret, String encodedSecret) {
+		if (rawSecret == null || encodedSecret == null) {
+			return false;
+		}
+		byte[] digest = sha256(rawSecret);
+		byte[] known = verified.get(encodedSecret);
+		if (known != null) {
+			return MessageDigest.isEqual(digest, known);
+		}
+		if (!delegate.matches(rawSecret, encodedSecret)) {
+			return false;
+		}
+		verified.put(encodedSecret, digest);
+		return true;
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedSecret) {
+		return delegate.upgradeEncoding(encodedSecret);
+	}
+
+	private static byte[] sha256(CharSequence value) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(value.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
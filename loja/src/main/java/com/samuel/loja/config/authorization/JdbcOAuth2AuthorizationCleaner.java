@@ -0,0 +1,55 @@
+package com.samuel.loja.config.authorization;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The JDBC authorization store never forgets a row by itself: this job deletes the authorizations
+ * whose tokens have all expired and publishes the table size and the deleted rows, the same
+ * {@code entries}/{@code evictions} view Caffeine gives for the memory store.
+ */
+public class JdbcOAuth2AuthorizationCleaner {
+
+	private static final String DELETE_EXPIRED = """
+		DELETE FROM oauth2_authorization
+		WHERE (access_token_expires_at IS NULL OR access_token_expires_at < ?)
+		  AND (refresh_token_expires_at IS NULL OR refresh_token_expires_at < ?)
+		  AND (authorization_code_expires_at IS NULL OR authorization_code_expires_at < ?)
+		""";
+
+	private static final String COUNT = "SELECT COUNT(*) FROM oauth2_authorization";
+
+	private final JdbcOperations jdbcOperations;
+	private final AtomicLong entries = new AtomicLong();
+	private final Counter evictions;
+
+	public JdbcOAuth2AuthorizationCleaner(JdbcOperations jdbcOperations, MeterRegistry registry) {
+		this.jdbcOperations = jdbcOperations;
+		Gauge.builder("oauth2.authorizations.entries", entries, AtomicLong::get)
+			.description("Authorizations kept in the store, as of the last cleanup")
+			.tag("store", "jdbc")
+			.register(registry);
+		this.evictions = Counter.builder("oauth2.authorizations.evictions")
+			.description("Expired authorizations deleted from the store")
+			.tag("store", "jdbc")
+			.register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${security.authorization.cleanup-interval:300000}")
+	public int purgeExpired() {
+		Timestamp now = Timestamp.from(Instant.now());
+		int deleted = jdbcOperations.update(DELETE_EXPIRED, now, now, now);
+		evictions.increment(deleted);
+		Long count = jdbcOperations.queryForObject(COUNT, Long.class);
+		entries.set(count != null ? count : 0);
+		return deleted;
+	}
+}
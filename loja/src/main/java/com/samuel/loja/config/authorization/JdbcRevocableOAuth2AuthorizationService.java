@@ -0,0 +1,26 @@
+package com.samuel.loja.config.authorization;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+/**
+ * {@link JdbcOAuth2AuthorizationService} that also deletes the rows of a principal.
+ */
+public class JdbcRevocableOAuth2AuthorizationService extends JdbcOAuth2AuthorizationService
+		implements RevocableOAuth2AuthorizationService {
+
+	private static final String DELETE_BY_PRINCIPAL = "DELETE FROM oauth2_authorization WHERE principal_name = ?";
+
+	public JdbcRevocableOAuth2AuthorizationService(JdbcOperations jdbcOperations,
+			RegisteredClientRepository registeredClientRepository) {
+		super(jdbcOperations, registeredClientRepository);
+	}
+
+	@Override
+	public int removeByPrincipalName(String principalName) {
+		Assert.hasText(principalName, "principalName cannot be empty");
+		return getJdbcOperations().update(DELETE_BY_PRINCIPAL, principalName);
+	}
+}
@@ -0,0 +1,64 @@
+package com.samuel.loja.config.authorization;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+
+/**
+ * Makes sure the {@code oauth2_authorization} table exists before the JDBC store is used: it is
+ * created from the Spring Authorization Server schema when missing and
+ * {@code security.authorization.initialize-schema} is on, otherwise startup fails with the script
+ * to run, instead of the first login failing on the missing table.
+ */
+public class OAuth2AuthorizationSchemaInitializer implements InitializingBean {
+
+	static final String SCHEMA = "org/springframework/security/oauth2/server/authorization/oauth2-authorization-schema.sql";
+
+	private static final Logger log = LoggerFactory.getLogger(OAuth2AuthorizationSchemaInitializer.class);
+
+	private final DataSource dataSource;
+	private final JdbcOperations jdbcOperations;
+	private final boolean initializeSchema;
+
+	public OAuth2AuthorizationSchemaInitializer(DataSource dataSource, JdbcOperations jdbcOperations,
+			boolean initializeSchema) {
+		this.dataSource = dataSource;
+		this.jdbcOperations = jdbcOperations;
+		this.initializeSchema = initializeSchema;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (tableExists()) {
+			return;
+		}
+		if (!initializeSchema) {
+			throw new IllegalStateException("security.authorization.store=jdbc needs the oauth2_authorization table, "
+				+ "create it with classpath:" + SCHEMA + " or set security.authorization.initialize-schema=true");
+		}
+		try {
+			new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)).execute(dataSource);
+		} catch (ScriptException e) {
+			// PostgreSQL, for one, has no blob type and needs the script adapted
+			throw new IllegalStateException("Could not create the oauth2_authorization table from classpath:" + SCHEMA
+				+ ", create it by hand for this database", e);
+		}
+		log.info("Created the oauth2_authorization table for the jdbc authorization store");
+	}
+
+	private boolean tableExists() {
+		try {
+			jdbcOperations.queryForObject("SELECT COUNT(*) FROM oauth2_authorization WHERE 1 = 0", Long.class);
+			return true;
+		} catch (DataAccessException e) {
+			return false;
+		}
+	}
+}
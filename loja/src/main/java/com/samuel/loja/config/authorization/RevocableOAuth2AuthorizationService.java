@@ -0,0 +1,15 @@
+package com.samuel.loja.config.authorization;
+
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+
+/**
+ * An {@link OAuth2AuthorizationService} that can drop every authorization of a user at once, so a
+ * deleted or changed account cannot keep refreshing the tokens issued before the change.
+ */
+public interface RevocableOAuth2AuthorizationService extends OAuth2AuthorizationService {
+
+	/**
+	 * Removes the authorizations issued to {@code principalName} and returns how many were removed.
+	 */
+	int removeByPrincipalName(String principalName);
+}
@@ -0,0 +1,60 @@
+package com.samuel.loja.config.authorization;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the latency of the authorization store lookups as {@code oauth2.authorizations.lookup},
+ * tagged with the store and the operation.
+ */
+public class TimedOAuth2AuthorizationService implements RevocableOAuth2AuthorizationService {
+
+	private final RevocableOAuth2AuthorizationService delegate;
+	private final Timer findById;
+	private final Timer findByToken;
+
+	public TimedOAuth2AuthorizationService(RevocableOAuth2AuthorizationService delegate, MeterRegistry registry, String store) {
+		this.delegate = delegate;
+		this.findById = lookupTimer(registry, store, "findById");
+		this.findByToken = lookupTimer(registry, store, "findByToken");
+	}
+
+	@Override
+	public void save(OAuth2Authorization authorization) {
+		delegate.save(authorization);
+	}
+
+	@Override
+	public void remove(OAuth2Authorization authorization) {
+		delegate.remove(authorization);
+	}
+
+	@Override
+	public int removeByPrincipalName(String principalName) {
+		return delegate.removeByPrincipalName(principalName);
+	}
+
+	@Nullable
+	@Override
+	public OAuth2Authorization findById(String id) {
+		return findById.record(() -> delegate.findById(id));
+	}
+
+	@Nullable
+	@Override
+	public OAuth2Authorization findByToken(String token, @Nullable OAuth2TokenType tokenType) {
+		return findByToken.record(() -> delegate.findByToken(token, tokenType));
+	}
+
+	private static Timer lookupTimer(MeterRegistry registry, String store, String operation) {
+		return Timer.builder("oauth2.authorizations.lookup")
+			.description("Latency of the OAuth2 authorization store lookups")
+			.tag("store", store)
+			.tag("operation", operation)
+			.register(registry);
+	}
+}
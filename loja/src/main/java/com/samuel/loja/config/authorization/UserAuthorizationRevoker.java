@@ -0,0 +1,33 @@
+package com.samuel.loja.config.authorization;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.samuel.loja.services.events.UserChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drops the authorizations of a user once its change is committed: its refresh tokens were issued
+ * with the roles it had at login and would otherwise keep minting access tokens with them.
+ */
+@Slf4j
+@Component
+public class UserAuthorizationRevoker {
+
+	@Autowired
+	private RevocableOAuth2AuthorizationService authorizationService;
+
+	// after commit the jdbc store must not write on the finished transaction's connection
+	@TransactionalEventListener(fallbackExecution = true)
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void onUserChanged(UserChangedEvent event) {
+		int removed = authorizationService.removeByPrincipalName(event.email());
+		if (removed > 0) {
+			log.info("Revoked {} authorizations of {}", removed, event.email());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.samuel.loja.config.customgrant;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+
+/**
+ * A token request turned away before its password was checked. Unlike the other grant errors,
+ * which are all 400, it carries the status and {@code Retry-After} the token endpoint answers with.
+ */
+public class LoginRejectedException extends OAuth2AuthenticationException {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String TOO_MANY_REQUESTS = "too_many_requests";
+
+	private final HttpStatus status;
+	private final Duration retryAfter;
+
+	public LoginRejectedException(OAuth2Error error, HttpStatus status, Duration retryAfter) {
+		super(error, error.getDescription());
+		this.status = status;
+		this.retryAfter = retryAfter;
+	}
+
+	public static LoginRejectedException unavailable(Duration retryAfter) {
+		OAuth2Error error = new OAuth2Error(OAuth2ErrorCodes.TEMPORARILY_UNAVAILABLE,
+			"Too many logins in progress, try again later.", null);
+		return new LoginRejectedException(error, HttpStatus.SERVICE_UNAVAILABLE, retryAfter);
+	}
+
+	public static LoginRejectedException tooManyAttempts(Duration retryAfter) {
+		OAuth2Error error = new OAuth2Error(TOO_MANY_REQUESTS, "Too many login attempts, try again later.", null);
+		return new LoginRejectedException(error, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+	}
+
+	public HttpStatus getStatus() {
+		return status;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
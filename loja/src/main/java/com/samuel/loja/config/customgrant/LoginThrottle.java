@@ -0,0 +1,113 @@
+package com.samuel.loja.config.customgrant;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-username and per-address limits of the password grant, checked before any password is hashed.
+ *
+ * <p>A username is blocked after {@code failures-per-username} failed logins and an address after
+ * {@code per-address} token requests, each for the rest of a {@code window} counted from the first
+ * one. A successful login clears the failures of its username. The counters are local to the node.
+ */
+@Component
+public class LoginThrottle {
+
+	// bounds the memory a flood of distinct usernames or addresses can take
+	private static final long MAXIMUM_SIZE = 100_000;
+
+	@Value("${security.login.throttle.failures-per-username}")
+	private int maxFailuresPerUsername;
+
+	@Value("${security.login.throttle.per-address}")
+	private int maxAttemptsPerAddress;
+
+	@Value("${security.login.throttle.window}")
+	private Duration window;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private Ticker ticker = Ticker.systemTicker();
+	private Cache<String, AtomicInteger> failuresByUsername;
+	private Cache<String, AtomicInteger> attemptsByAddress;
+	private Counter throttledUsername;
+	private Counter throttledAddress;
+
+	public LoginThrottle() {
+	}
+
+	LoginThrottle(int maxFailuresPerUsername, int maxAttemptsPerAddress, Duration window, MeterRegistry registry,
+			Ticker ticker) {
+		this.maxFailuresPerUsername = maxFailuresPerUsername;
+		this.maxAttemptsPerAddress = maxAttemptsPerAddress;
+		this.window = window;
+		this.registry = registry;
+		this.ticker = ticker;
+		init();
+	}
+
+	@PostConstruct
+	void init() {
+		failuresByUsername = counters();
+		attemptsByAddress = counters();
+		throttledUsername = PasswordHashingExecutor.rejectedCounter(registry, "username");
+		throttledAddress = PasswordHashingExecutor.rejectedCounter(registry, "address");
+	}
+
+	/** Counts the attempt and throws a 429 {@link LoginRejectedException} when a limit is reached; 0 disables a limit. */
+	public void checkAllowed(String username, String remoteAddress) {
+		if (maxFailuresPerUsername > 0 && username != null) {
+			AtomicInteger failures = failuresByUsername.getIfPresent(key(username));
+			if (failures != null && failures.get() >= maxFailuresPerUsername) {
+				throttledUsername.increment();
+				throw LoginRejectedException.tooManyAttempts(window);
+			}
+		}
+		if (maxAttemptsPerAddress > 0 && remoteAddress != null) {
+			// get does not rewrite an existing counter, so the window keeps running from the first attempt
+			int attempts = attemptsByAddress.get(remoteAddress, k -> new AtomicInteger()).incrementAndGet();
+			if (attempts > maxAttemptsPerAddress) {
+				throttledAddress.increment();
+				throw LoginRejectedException.tooManyAttempts(window);
+			}
+		}
+	}
+
+	public void recordFailure(String username) {
+		if (maxFailuresPerUsername > 0 && username != null) {
+			failuresByUsername.get(key(username), k -> new AtomicInteger()).incrementAndGet();
+		}
+	}
+
+	public void recordSuccess(String username) {
+		if (username != null) {
+			failuresByUsername.invalidate(key(username));
+		}
+	}
+
+	private Cache<String, AtomicInteger> counters() {
+		return Caffeine.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfterWrite(window)
+			.ticker(ticker)
+			.build();
+	}
+
+	private static String key(String username) {
+		return username.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,135 @@
+package com.samuel.loja.config.customgrant;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the password checks of the password grant on a fixed pool with a bounded queue.
+ *
+ * <p>BCrypt costs tens of milliseconds of CPU per login. Run directly on the Tomcat threads, a
+ * burst of logins took every thread and the catalog stopped answering. Here at most
+ * {@code pool-size + queue-capacity} token requests wait for a check at once; the next one is
+ * rejected with a 503 at once, as is a request that waited longer than {@code timeout}, so the
+ * remaining request threads keep serving the other endpoints.
+ *
+ * <p>Published as {@code executor.*{name=password.hashing}}: {@code executor.queued} is the queue
+ * depth, the {@code executor} timer the hash latency and {@code executor.idle} the time spent queued.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+	@Value("${security.login.hashing.pool-size}")
+	private int poolSize;
+
+	@Value("${security.login.hashing.queue-capacity}")
+	private int queueCapacity;
+
+	@Value("${security.login.hashing.timeout}")
+	private Duration timeout;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private ThreadPoolExecutor pool;
+	private ExecutorService executor;
+	private Counter saturated;
+	private Counter timedOut;
+
+	public PasswordHashingExecutor() {
+	}
+
+	PasswordHashingExecutor(int poolSize, int queueCapacity, Duration timeout, MeterRegistry registry) {
+		this.poolSize = poolSize;
+		this.queueCapacity = queueCapacity;
+		this.timeout = timeout;
+		this.registry = registry;
+		start();
+	}
+
+	@PostConstruct
+	void start() {
+		int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+		BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+		AtomicInteger threadNumber = new AtomicInteger();
+		pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+			Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+		executor = ExecutorServiceMetrics.monitor(registry, pool, "password.hashing");
+		saturated = rejectedCounter(registry, "saturated");
+		timedOut = rejectedCounter(registry, "timeout");
+	}
+
+	@PreDestroy
+	void stop() {
+		pool.shutdownNow();
+	}
+
+	/** Runs the task on the hashing pool and waits for it, or throws a 503 {@link LoginRejectedException}. */
+	public <T> T execute(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			saturated.increment();
+			throw LoginRejectedException.unavailable(timeout);
+		}
+
+		try {
+			return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// dropped from the queue if it has not started; a running hash cannot be interrupted
+			future.cancel(true);
+			timedOut.increment();
+			throw LoginRejectedException.unavailable(timeout);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw LoginRejectedException.unavailable(timeout);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/** Queues background work on the hashing pool without waiting for it; false when the pool is full. */
+	public boolean submit(Runnable task) {
+		try {
+			executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	static Counter rejectedCounter(MeterRegistry registry, String reason) {
+		return Counter.builder("security.login.rejected")
+			.description("Token requests turned away before the password check")
+			.tag("reason", reason)
+			.register(registry);
+	}
+}
@@ -0,0 +1,44 @@
+package com.samuel.loja.config.customgrant;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.http.converter.OAuth2ErrorHttpMessageConverter;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes token endpoint errors as the default handler does (400 with the OAuth2 error body), except
+ * for {@link LoginRejectedException}, answered with its own status and a {@code Retry-After}.
+ */
+public class TokenErrorResponseHandler implements AuthenticationFailureHandler {
+
+	private final HttpMessageConverter<OAuth2Error> errorConverter = new OAuth2ErrorHttpMessageConverter();
+
+	@Override
+	public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+			AuthenticationException exception) throws IOException {
+		OAuth2Error error = exception instanceof OAuth2AuthenticationException oauth2Exception
+			? oauth2Exception.getError()
+			: new OAuth2Error(OAuth2ErrorCodes.INVALID_REQUEST, exception.getMessage(), null);
+
+		ServletServerHttpResponse httpResponse = new ServletServerHttpResponse(response);
+		if (exception instanceof LoginRejectedException rejected) {
+			httpResponse.setStatusCode(rejected.getStatus());
+			httpResponse.getHeaders().set(HttpHeaders.RETRY_AFTER,
+				String.valueOf(Math.max(1, rejected.getRetryAfter().toSeconds())));
+		} else {
+			httpResponse.setStatusCode(HttpStatus.BAD_REQUEST);
+		}
+		errorConverter.write(error, null, httpResponse);
+	}
+}
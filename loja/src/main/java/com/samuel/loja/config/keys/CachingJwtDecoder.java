@@ -0,0 +1,111 @@
+package com.samuel.loja.config.keys;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Keeps the tokens that passed verification until their {@code exp} minus the validator's clock
+ * skew, so a client reusing one token pays the signature check once instead of on every request
+ * and a cached token is never accepted after the validator would reject it. Entries are keyed by
+ * the SHA-256 of the token; rejected tokens, tokens without exp and tokens whose {@code nbf} is
+ * still ahead of the clock are decoded every time.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+	private final JwtDecoder delegate;
+	private final Clock clock;
+	private final Duration clockSkew;
+	private final Cache<String, Jwt> cache;
+
+	public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration clockSkew) {
+		this(delegate, maximumSize, clockSkew, Clock.systemUTC(), Ticker.systemTicker());
+	}
+
+	CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration clockSkew, Clock clock, Ticker ticker) {
+		this.delegate = delegate;
+		this.clock = clock;
+		this.clockSkew = clockSkew;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfter(new TokenExpiry())
+			.ticker(ticker)
+			.recordStats()
+			.build();
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		String key = hash(token);
+		Jwt jwt = cache.getIfPresent(key);
+		if (jwt != null && remainingNanos(jwt) > 0) {
+			return jwt;
+		}
+		if (jwt != null) {
+			// the clock reached the cut-off before the ticker evicted the entry
+			cache.invalidate(key);
+		}
+		jwt = delegate.decode(token);
+		if (isCacheable(jwt)) {
+			cache.put(key, jwt);
+		}
+		return jwt;
+	}
+
+	public Cache<String, Jwt> getCache() {
+		return cache;
+	}
+
+	private boolean isCacheable(Jwt jwt) {
+		if (jwt.getExpiresAt() == null || remainingNanos(jwt) <= 0) {
+			return false;
+		}
+		// accepted within the skew before nbf: not valid yet, let the validator see it again
+		return jwt.getNotBefore() == null || !jwt.getNotBefore().isAfter(clock.instant());
+	}
+
+	private long remainingNanos(Jwt jwt) {
+		Instant cutOff = jwt.getExpiresAt().minus(clockSkew);
+		return Duration.between(clock.instant(), cutOff).toNanos();
+	}
+
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private class TokenExpiry implements Expiry<String, Jwt> {
+
+		@Override
+		public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+			return Math.max(0, remainingNanos(jwt));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, jwt, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
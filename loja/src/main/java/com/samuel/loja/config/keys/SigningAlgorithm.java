@@ -0,0 +1,73 @@
+package com.samuel.loja.config.keys;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.JWKGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * The JWT signature algorithms offered by {@code security.jwt.algorithm}. Spring's
+ * {@code SignatureAlgorithm} has no EdDSA, so this enum is the {@link JwsAlgorithm} put in the
+ * token header. RS256 verifies fastest but signs slowest and makes the largest tokens, EdDSA
+ * signs fastest with short tokens and ES256 verifies slowest (see JwtSignatureBenchmark).
+ */
+public enum SigningAlgorithm implements JwsAlgorithm {
+
+	RS256(JWSAlgorithm.RS256),
+	ES256(JWSAlgorithm.ES256),
+	EdDSA(JWSAlgorithm.EdDSA);
+
+	private final JWSAlgorithm jwsAlgorithm;
+
+	SigningAlgorithm(JWSAlgorithm jwsAlgorithm) {
+		this.jwsAlgorithm = jwsAlgorithm;
+	}
+
+	@Override
+	public String getName() {
+		return jwsAlgorithm.getName();
+	}
+
+	public JWSAlgorithm getJwsAlgorithm() {
+		return jwsAlgorithm;
+	}
+
+	public static SigningAlgorithm of(JWK key) {
+		for (SigningAlgorithm algorithm : values()) {
+			if (algorithm.jwsAlgorithm.equals(key.getAlgorithm())) {
+				return algorithm;
+			}
+		}
+		// keys provisioned without "alg" are RSA PEM files
+		return RS256;
+	}
+
+	public JWK generate(Instant createdAt) {
+		JWKGenerator<? extends JWK> generator = switch (this) {
+			case RS256 -> new RSAKeyGenerator(2048);
+			case ES256 -> new ECKeyGenerator(Curve.P_256);
+			case EdDSA -> new OctetKeyPairGenerator(Curve.Ed25519);
+		};
+		try {
+			return generator
+				.keyID(UUID.randomUUID().toString())
+				.keyUse(KeyUse.SIGNATURE)
+				.algorithm(jwsAlgorithm)
+				.issueTime(Date.from(createdAt))
+				.generate();
+		} catch (JOSEException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
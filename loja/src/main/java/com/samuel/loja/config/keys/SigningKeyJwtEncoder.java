@@ -0,0 +1,88 @@
+package com.samuel.loja.config.keys;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Signs with the key the header names by kid (the current signing key when there is none).
+ * {@code NimbusJwtEncoder} only selects RSA, EC and HMAC keys, so it cannot sign EdDSA tokens.
+ */
+public class SigningKeyJwtEncoder implements JwtEncoder {
+
+	private final SigningKeyManager signingKeyManager;
+	private final DefaultJWSSignerFactory signerFactory = new DefaultJWSSignerFactory();
+	private final Map<String, JWSSigner> signers = new ConcurrentHashMap<>();
+
+	public SigningKeyJwtEncoder(SigningKeyManager signingKeyManager) {
+		this.signingKeyManager = signingKeyManager;
+	}
+
+	@Override
+	public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+		JwsHeader headers = parameters.getJwsHeader();
+		JwtClaimsSet claims = parameters.getClaims();
+
+		JWK key = headers != null && headers.getKeyId() != null
+			? signingKeyManager.getVerificationKeys().getKeyByKeyId(headers.getKeyId())
+			: signingKeyManager.getSigningKey();
+		if (key == null || !key.isPrivate()) {
+			throw new JwtEncodingException("No private signing key with kid " + headers.getKeyId());
+		}
+		JWSAlgorithm algorithm = SigningAlgorithm.of(key).getJwsAlgorithm();
+
+		JWSHeader.Builder jwsHeader = new JWSHeader.Builder(algorithm).keyID(key.getKeyID());
+		if (headers != null && headers.getType() != null) {
+			jwsHeader.type(new JOSEObjectType(headers.getType()));
+		}
+		JWTClaimsSet.Builder jwtClaims = new JWTClaimsSet.Builder();
+		claims.getClaims().forEach((name, value) -> jwtClaims.claim(name, convert(value)));
+
+		SignedJWT jwt = new SignedJWT(jwsHeader.build(), jwtClaims.build());
+		try {
+			jwt.sign(signers.computeIfAbsent(key.getKeyID(), kid -> createSigner(key, algorithm)));
+		} catch (JOSEException e) {
+			throw new JwtEncodingException("Failed to sign the JWT: " + e.getMessage(), e);
+		}
+
+		return new Jwt(jwt.serialize(), claims.getIssuedAt(), claims.getExpiresAt(),
+			jwt.getHeader().toJSONObject(), claims.getClaims());
+	}
+
+	private JWSSigner createSigner(JWK key, JWSAlgorithm algorithm) {
+		try {
+			return signerFactory.createJWSSigner(key, algorithm);
+		} catch (JOSEException e) {
+			throw new JwtEncodingException("Unsupported signing key " + key.getKeyID() + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static Object convert(Object value) {
+		if (value instanceof Instant instant) {
+			return Date.from(instant);
+		}
+		if (value instanceof URL url) {
+			return url.toExternalForm();
+		}
+		return value;
+	}
+}
@@ -0,0 +1,107 @@
+package com.samuel.loja.config.keys;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+/**
+ * Verifies the signature of our own tokens against the key their kid names in the verification
+ * set, with one verifier per key built once instead of on every request. Nimbus'
+ * {@code JWSVerificationKeySelector} cannot hand Ed25519 keys to a verifier, so it is not used.
+ * The claims (exp, nbf) are left to the validators of {@code NimbusJwtDecoder}.
+ */
+public class SigningKeyJwtProcessor implements JWTProcessor<SecurityContext> {
+
+	private final SigningKeyManager signingKeyManager;
+	private final Map<String, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+
+	public SigningKeyJwtProcessor(SigningKeyManager signingKeyManager) {
+		this.signingKeyManager = signingKeyManager;
+	}
+
+	@Override
+	public JWTClaimsSet process(String token, SecurityContext context) throws ParseException, BadJOSEException, JOSEException {
+		return process(JWTParser.parse(token), context);
+	}
+
+	@Override
+	public JWTClaimsSet process(JWT jwt, SecurityContext context) throws BadJOSEException, JOSEException {
+		if (jwt instanceof SignedJWT signedJwt) {
+			return process(signedJwt, context);
+		}
+		throw new BadJOSEException("Unsigned JWT rejected");
+	}
+
+	@Override
+	public JWTClaimsSet process(PlainJWT jwt, SecurityContext context) throws BadJOSEException {
+		throw new BadJOSEException("Unsigned JWT rejected");
+	}
+
+	@Override
+	public JWTClaimsSet process(EncryptedJWT jwt, SecurityContext context) throws BadJOSEException {
+		throw new BadJOSEException("Encrypted JWT rejected");
+	}
+
+	@Override
+	public JWTClaimsSet process(SignedJWT jwt, SecurityContext context) throws BadJOSEException, JOSEException {
+		String keyId = jwt.getHeader().getKeyID();
+		JWK key = keyId != null ? signingKeyManager.getVerificationKeys().getKeyByKeyId(keyId) : null;
+		if (key == null) {
+			throw new BadJWSException("Signed JWT rejected: unknown key " + keyId);
+		}
+		// the algorithm comes from our key, never from the token
+		if (!SigningAlgorithm.of(key).getJwsAlgorithm().equals(jwt.getHeader().getAlgorithm())) {
+			throw new BadJWSException("Signed JWT rejected: unexpected algorithm " + jwt.getHeader().getAlgorithm());
+		}
+		if (!jwt.verify(verifier(key))) {
+			throw new BadJWSException("Signed JWT rejected: invalid signature");
+		}
+		try {
+			return jwt.getJWTClaimsSet();
+		} catch (ParseException e) {
+			throw new BadJOSEException("Invalid JWT claims: " + e.getMessage(), e);
+		}
+	}
+
+	private JWSVerifier verifier(JWK key) throws JOSEException {
+		JWSVerifier verifier = verifiers.get(key.getKeyID());
+		if (verifier == null) {
+			verifier = createVerifier(key);
+			verifiers.put(key.getKeyID(), verifier);
+		}
+		return verifier;
+	}
+
+	private static JWSVerifier createVerifier(JWK key) throws JOSEException {
+		if (key instanceof RSAKey rsaKey) {
+			return new RSASSAVerifier(rsaKey.toPublicJWK());
+		}
+		if (key instanceof ECKey ecKey) {
+			return new ECDSAVerifier(ecKey.toPublicJWK());
+		}
+		if (key instanceof OctetKeyPair octetKeyPair) {
+			return new Ed25519Verifier(octetKeyPair.toPublicJWK());
+		}
+		throw new JOSEException("Unsupported key type " + key.getKeyType());
+	}
+}
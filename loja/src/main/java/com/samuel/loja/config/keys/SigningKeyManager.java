@@ -0,0 +1,240 @@
+package com.samuel.loja.config.keys;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns the keys that sign and verify the issued JWTs.
+ *
+ * <p>With {@code security.jwt.keys.dir} set, the keys live in that directory, shared by every
+ * node: JWK files ({@code <kid>.json}, written by the rotation) and PKCS#8 RSA private keys
+ * ({@code <kid>.pem}). Without it a key is generated in memory, as before, and tokens do not
+ * survive a restart.
+ *
+ * <p>New keys are generated for {@code security.jwt.algorithm}. A new key is published {@code publish-ahead} before it starts signing, so clients that
+ * cached the JWKS already know it, and a retired key stays in the verification set for one token
+ * lifetime ({@code security.jwt.duration}). Which key signs depends only on the key creation
+ * times, so nodes reading the same directory agree without coordination. Once a generated key has
+ * left the verification set its file is deleted; provisioned {@code .pem} keys are left to whoever
+ * deployed them.
+ */
+@Slf4j
+@Component
+public class SigningKeyManager {
+
+	private record Keys(JWK signing, JWKSet verification) {
+	}
+
+	@Value("${security.jwt.algorithm}")
+	private SigningAlgorithm algorithm;
+
+	@Value("${security.jwt.keys.dir}")
+	private String directoryName;
+
+	@Value("${security.jwt.keys.rotation}")
+	private Duration rotation;
+
+	@Value("${security.jwt.keys.publish-ahead}")
+	private Duration publishAhead;
+
+	@Value("${security.jwt.duration}")
+	private Integer jwtDurationSeconds;
+
+	private Clock clock = Clock.systemUTC();
+	private List<JWK> memoryKeys = new ArrayList<>();
+	private volatile Keys keys;
+
+	public SigningKeyManager() {
+	}
+
+	SigningKeyManager(SigningAlgorithm algorithm, Path directory, Duration rotation, Duration publishAhead,
+			Duration tokenTimeToLive, Clock clock) {
+		this.algorithm = algorithm;
+		this.directoryName = directory != null ? directory.toString() : "";
+		this.rotation = rotation;
+		this.publishAhead = publishAhead;
+		this.jwtDurationSeconds = (int) tokenTimeToLive.toSeconds();
+		this.clock = clock;
+		refresh();
+	}
+
+	public JWK getSigningKey() {
+		return keys.signing();
+	}
+
+	public SigningAlgorithm getSigningAlgorithm() {
+		return SigningAlgorithm.of(keys.signing());
+	}
+
+	/** Every key a token issued by any node may currently be signed with, including the private parts. */
+	public JWKSet getVerificationKeys() {
+		return keys.verification();
+	}
+
+	/** Reloads the shared directory, picking up keys rotated by other nodes, and rotates when due. */
+	@PostConstruct
+	@Scheduled(fixedDelayString = "${security.jwt.keys.refresh-interval}", initialDelayString = "${security.jwt.keys.refresh-interval}")
+	public synchronized void refresh() {
+		Instant now = clock.instant();
+		List<JWK> all = directory() != null ? load(directory()) : new ArrayList<>(memoryKeys);
+		all.sort(Comparator.comparing(SigningKeyManager::createdAt).reversed());
+
+		boolean rotationDue = !all.isEmpty() && !rotation.isZero() && !rotation.isNegative()
+			&& !createdAt(all.get(0)).plus(rotation).isAfter(now);
+		// a changed security.jwt.algorithm is rolled out like a rotation
+		boolean algorithmChanged = !all.isEmpty() && SigningAlgorithm.of(all.get(0)) != algorithm;
+		if (all.isEmpty() || rotationDue || algorithmChanged) {
+			JWK key = algorithm.generate(now);
+			if (directory() != null) {
+				write(directory(), key);
+			}
+			all.add(0, key);
+			log.info("JWT signing key {} created, signs from {}", key.getKeyID(), all.size() == 1 ? now : now.plus(publishAhead));
+		}
+
+		// the newest key old enough to be in every cached JWKS; on a fresh start the only key there is
+		int signing = 0;
+		while (signing < all.size() - 1 && createdAt(all.get(signing)).plus(publishAhead).isAfter(now)) {
+			signing++;
+		}
+
+		List<JWK> verification = new ArrayList<>(all.subList(0, signing + 1));
+		for (int i = signing + 1; i < all.size(); i++) {
+			Instant retiredAt = createdAt(all.get(i - 1)).plus(publishAhead);
+			if (!retiredAt.plusSeconds(jwtDurationSeconds).isAfter(now)) {
+				break;
+			}
+			verification.add(all.get(i));
+		}
+
+		if (directory() != null) {
+			for (JWK expired : all.subList(verification.size(), all.size())) {
+				delete(directory(), expired);
+			}
+		}
+
+		memoryKeys = verification;
+		keys = new Keys(all.get(signing), new JWKSet(verification));
+	}
+
+	private Path directory() {
+		return StringUtils.hasText(directoryName) ? Path.of(directoryName) : null;
+	}
+
+	private static Instant createdAt(JWK key) {
+		return key.getIssueTime() != null ? key.getIssueTime().toInstant() : Instant.EPOCH;
+	}
+
+	private static List<JWK> load(Path directory) {
+		List<JWK> keys = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.sorted().toList()) {
+				String fileName = file.getFileName().toString();
+				try {
+					if (fileName.endsWith(".json")) {
+						keys.add(JWK.parse(Files.readString(file, StandardCharsets.UTF_8)));
+					} else if (fileName.endsWith(".pem")) {
+						keys.add(readPem(file, fileName.substring(0, fileName.length() - ".pem".length())));
+					}
+				} catch (NoSuchFileException e) {
+					// an expired key deleted by another node since the listing
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the JWT keys from " + directory, e);
+		} catch (ParseException | GeneralSecurityException e) {
+			throw new IllegalStateException("Invalid JWT key in " + directory, e);
+		}
+		return keys;
+	}
+
+	private static JWK readPem(Path file, String keyId) throws IOException, GeneralSecurityException {
+		String base64 = Files.readString(file, StandardCharsets.US_ASCII)
+			.replaceAll("-----[A-Z ]+-----", "")
+			.replaceAll("\\s", "");
+		KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+		RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) keyFactory.generatePrivate(
+			new PKCS8EncodedKeySpec(Base64.getDecoder().decode(base64)));
+		RSAPublicKey publicKey = (RSAPublicKey) keyFactory.generatePublic(
+			new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent()));
+
+		return new RSAKey.Builder(publicKey)
+			.privateKey(privateKey)
+			.keyID(keyId)
+			.keyUse(KeyUse.SIGNATURE)
+			.algorithm(JWSAlgorithm.RS256)
+			.issueTime(Date.from(Files.getLastModifiedTime(file).toInstant()))
+			.build();
+	}
+
+	// only the keys written by the rotation; every node deletes the expired ones it sees, the first one wins
+	private static void delete(Path directory, JWK key) {
+		try {
+			if (Files.deleteIfExists(directory.resolve(key.getKeyID() + ".json"))) {
+				log.info("JWT key {} expired, {}.json deleted", key.getKeyID(), key.getKeyID());
+			}
+		} catch (IOException e) {
+			// kept for the next refresh, the key is out of the verification set either way
+			log.warn("Could not delete the expired JWT key {} from {}", key.getKeyID(), directory, e);
+		}
+	}
+
+	// written to a temporary file and moved, so another node never reads half a key
+	private static void write(Path directory, JWK key) {
+		try {
+			Files.createDirectories(directory);
+			Path temporary = Files.createTempFile(directory, key.getKeyID(), ".tmp");
+			try {
+				Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-------"));
+			} catch (UnsupportedOperationException e) {
+				// not a POSIX file system, the directory permissions apply
+			}
+			Files.writeString(temporary, key.toJSONString(), StandardCharsets.UTF_8);
+			Path target = directory.resolve(key.getKeyID() + ".json");
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the JWT key to " + directory, e);
+		}
+	}
+}
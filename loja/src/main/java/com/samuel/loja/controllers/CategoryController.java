@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.SliceDto;
 import com.samuel.loja.services.CategoryService;
 
 @RestController
@@ -44,11 +45,29 @@ public class CategoryController {
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping(params = "withTotal=false")
+    public ResponseEntity<SliceDto<CategoryDto>> findAllWithoutTotal(
+        @RequestParam(value = "page", defaultValue = "0") Integer page,
+        @RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+        @RequestParam(value = "direction", defaultValue = "ASC") String direction,
+        @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+        @RequestParam(value = "approximateTotal", defaultValue = "false") boolean approximateTotal) {
+
+        PageRequest pageRequest = PageRequest.of(page, linesPerPage, Direction.valueOf(direction), orderBy);
+        SliceDto<CategoryDto> list = categoryService.findAllSliced(pageRequest, approximateTotal);
+        return ResponseEntity.ok().body(list);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CategoryDto> findById(@PathVariable Long id) {
         CategoryDto category = categoryService.findById(id);
 
-        return ResponseEntity.ok().body(category);
+        // a matching If-None-Match / If-Modified-Since gets a 304 before the body is serialized
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(category.getEntityTag());
+        if (category.getLastModified() != null) {
+            response.lastModified(category.getLastModified());
+        }
+        return response.body(category);
     }
 
     @PostMapping
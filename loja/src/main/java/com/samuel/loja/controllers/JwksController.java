@@ -0,0 +1,39 @@
+package com.samuel.loja.controllers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.samuel.loja.config.keys.SigningKeyManager;
+
+@RestController
+public class JwksController {
+
+    @Autowired
+    private SigningKeyManager signingKeyManager;
+
+    @Value("${security.jwt.keys.jwks-max-age}")
+    private Duration maxAge;
+
+    // the public keys only; a key is published publish-ahead before it signs, which must exceed max-age
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        JWKSet keys = signingKeyManager.getVerificationKeys().toPublicJWKSet();
+        String entityTag = keys.getKeys().stream().map(JWK::getKeyID).collect(Collectors.joining(","));
+
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+            .eTag(Integer.toHexString(entityTag.hashCode()))
+            .body(keys.toJSONObject());
+    }
+}
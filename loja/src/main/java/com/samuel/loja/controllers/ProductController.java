@@ -1,19 +1,35 @@
 package com.samuel.loja.controllers;
 
+import com.samuel.loja.dto.BulkResultDto;
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.FacetedPageDto;
+import com.samuel.loja.dto.ImportReportDto;
 import com.samuel.loja.dto.ProductDto;
 import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.dto.SliceDto;
+import com.samuel.loja.repository.ProductFilter;
+import com.samuel.loja.repository.ProductFilter.CategoryMatch;
+import com.samuel.loja.repository.ProductSortKey;
 import com.samuel.loja.services.ProductService;
+import com.samuel.loja.services.imports.ProductCsvImporter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/products")
@@ -21,24 +37,115 @@ public class ProductController {
 
     @Autowired
     private ProductService productService;
+    @Autowired
+    private ProductCsvImporter productCsvImporter;
     
     @GetMapping
     public ResponseEntity<Page<ProductListDto>> findAll(
         @RequestParam(value = "page", defaultValue = "0") Integer page,
         @RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
         @RequestParam(value = "direction", defaultValue = "ASC") String direction,
-        @RequestParam(value = "orderBy", defaultValue = "name") String orderBy) {
+        @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+        @RequestParam(value = "name", required = false) String name,
+        @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+        @RequestParam(value = "categoryMatch", defaultValue = "ANY") String categoryMatch,
+        @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+        @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice) {
+
+        PageRequest pageRequest = PageRequest.of(page, linesPerPage, Direction.valueOf(direction), orderBy);
+        ProductFilter filter = new ProductFilter(name, categoryIds, CategoryMatch.of(categoryMatch), minPrice, maxPrice);
+        Page<ProductListDto> list = productService.findAllPaged(filter, pageRequest);
+        return ResponseEntity.ok().body(list);
+    }
+
+    @GetMapping(params = "withTotal=false")
+    public ResponseEntity<SliceDto<ProductListDto>> findAllWithoutTotal(
+        @RequestParam(value = "page", defaultValue = "0") Integer page,
+        @RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+        @RequestParam(value = "direction", defaultValue = "ASC") String direction,
+        @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+        @RequestParam(value = "approximateTotal", defaultValue = "false") boolean approximateTotal,
+        @RequestParam(value = "name", required = false) String name,
+        @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+        @RequestParam(value = "categoryMatch", defaultValue = "ANY") String categoryMatch,
+        @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+        @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice) {
 
         PageRequest pageRequest = PageRequest.of(page, linesPerPage, Direction.valueOf(direction), orderBy);
-        Page<ProductListDto> list = productService.findAllPaged(pageRequest);
+        ProductFilter filter = new ProductFilter(name, categoryIds, CategoryMatch.of(categoryMatch), minPrice, maxPrice);
+        SliceDto<ProductListDto> list = productService.findAllSliced(filter, pageRequest, approximateTotal);
+        return ResponseEntity.ok().body(list);
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ProductListDto>> findAllByCursor(
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+        @RequestParam(value = "direction", defaultValue = "ASC") String direction,
+        @RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+        @RequestParam(value = "name", required = false) String name,
+        @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+        @RequestParam(value = "categoryMatch", defaultValue = "ANY") String categoryMatch,
+        @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+        @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice) {
+
+        ProductFilter filter = new ProductFilter(name, categoryIds, CategoryMatch.of(categoryMatch), minPrice, maxPrice);
+        CursorPageDto<ProductListDto> list = productService.findAllByCursor(filter, after, linesPerPage,
+            ProductSortKey.of(orderBy), Direction.valueOf(direction));
+        return ResponseEntity.ok().body(list);
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<FacetedPageDto<ProductListDto>> browse(
+        @RequestParam(value = "page", defaultValue = "0") Integer page,
+        @RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+        @RequestParam(value = "categoryId", defaultValue = "") List<Long> categoryIds,
+        @RequestParam(value = "excludeCategoryId", defaultValue = "") List<Long> excludedCategoryIds) {
+
+        FacetedPageDto<ProductListDto> list = productService.browse(categoryIds, excludedCategoryIds, page, linesPerPage);
+        return ResponseEntity.ok().body(list);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductListDto>> search(
+        @RequestParam(value = "q") String query,
+        @RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+
+        List<ProductListDto> list = productService.search(query, limit);
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+        @RequestParam(value = "prefix") String prefix,
+        @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+
+        List<String> list = productService.suggest(prefix, limit);
+        return ResponseEntity.ok().body(list);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> productService.export(out);
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products.ndjson")
+            .body(body);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> findById(@PathVariable Long id) {
         ProductDto product = productService.findById(id);
-        return ResponseEntity.ok().body(product);
+
+        // a matching If-None-Match / If-Modified-Since gets a 304 before the body is serialized
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(product.getEntityTag());
+        if (product.getLastModified() != null) {
+            response.lastModified(product.getLastModified());
+        }
+        return response.body(product);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
@@ -54,6 +161,20 @@ public class ProductController {
         return ResponseEntity.created(uri).body(dto);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResultDto> saveAll(@RequestBody List<ProductDto> productDtos) {
+        BulkResultDto result = productService.saveAll(productDtos);
+        return ResponseEntity.ok().body(result);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDto> importCsv(InputStream body) throws IOException {
+        ImportReportDto report = productCsvImporter.importCsv(body);
+        return ResponseEntity.ok().body(report);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
     @PutMapping("/{id}")
     public ResponseEntity<ProductDto> update(@PathVariable Long id,
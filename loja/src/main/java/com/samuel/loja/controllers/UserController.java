@@ -1,5 +1,6 @@
 package com.samuel.loja.controllers;
 
+import com.samuel.loja.dto.SliceDto;
 import com.samuel.loja.dto.UserDto;
 import com.samuel.loja.dto.UserInsertDTO;
 import com.samuel.loja.services.UserService;
@@ -29,6 +30,13 @@ public class UserController {
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping(params = "withTotal=false")
+    public ResponseEntity<SliceDto<UserDto>> findAllWithoutTotal(Pageable pageable,
+        @RequestParam(value = "approximateTotal", defaultValue = "false") boolean approximateTotal) {
+        SliceDto<UserDto> list = userService.findAllSliced(pageable, approximateTotal);
+        return ResponseEntity.ok().body(list);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
     @GetMapping("/{id}")
     public ResponseEntity<UserDto> findById(@PathVariable Long id) {
@@ -0,0 +1,33 @@
+package com.samuel.loja.dto;
+
+import java.util.List;
+
+import com.samuel.loja.controllers.exceptions.FieldMessage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk write, one item per submitted element in the same order. Items with errors
+ * were not written; the others were saved together in one transaction.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDto {
+
+    private Integer saved;
+    private Integer failed;
+    private List<Item> items;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        private Integer index;
+        private Long id;
+        private List<FieldMessage> errors;
+    }
+}
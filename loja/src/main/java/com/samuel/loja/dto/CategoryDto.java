@@ -1,11 +1,15 @@
 package com.samuel.loja.dto;
 
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.samuel.loja.entities.Category;
 
 import lombok.*;
 
 @Getter
 @Setter
+@NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @ToString
@@ -14,9 +18,26 @@ public class CategoryDto {
     private Long id;
     private String name;
 
+    // validators for conditional GETs
+    @JsonIgnore
+    private String entityTag;
+    @JsonIgnore
+    private Instant lastModified;
+
+    public CategoryDto(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public CategoryDto(CategoryDto other) {
+        this(other.id, other.name, other.entityTag, other.lastModified);
+    }
+
     public CategoryDto(Category category) {
         this.id = category.getId();
         this.name = category.getName();
+        this.entityTag = category.getId() + "-" + category.getVersion();
+        this.lastModified = category.getUpdatedAt() != null ? category.getUpdatedAt() : category.getCreatedAt();
     }
 
 }
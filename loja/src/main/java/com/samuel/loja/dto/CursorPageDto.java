@@ -0,0 +1,18 @@
+package com.samuel.loja.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content;
+    private Integer size;
+    private boolean hasNext;
+    private String next;
+}
@@ -0,0 +1,24 @@
+package com.samuel.loja.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A page of results plus, for each category, how many products of the whole result set
+ * (not only of this page) belong to it.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedPageDto<T> {
+
+    private List<T> content;
+    private Integer number;
+    private Integer size;
+    private Long totalElements;
+    private Map<Long, Long> facets;
+}
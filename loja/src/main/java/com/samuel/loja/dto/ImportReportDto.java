@@ -0,0 +1,35 @@
+package com.samuel.loja.dto;
+
+import java.util.List;
+
+import com.samuel.loja.controllers.exceptions.FieldMessage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a catalog import. {@code rejections} lists the rejected rows with their errors, up
+ * to a fixed limit; {@code rejected} always has the full count.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDto {
+
+    private Long read;
+    private Long imported;
+    private Long rejected;
+    private Long elapsedMillis;
+    private Double rowsPerSecond;
+    private List<RejectedRow> rejections;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedRow {
+
+        private Long line;
+        private List<FieldMessage> errors;
+    }
+}
@@ -3,9 +3,12 @@ package com.samuel.loja.dto;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.samuel.loja.entities.Category;
 import com.samuel.loja.entities.Product;
 
@@ -34,6 +37,19 @@ public class ProductDto {
 	@NotEmpty(message = "Must contain at least one category")
 	private List<CategoryDto> categories = new ArrayList<>();
 
+	// validators for conditional GETs, derived from the product and category versions
+	@JsonIgnore
+	private String entityTag;
+	@JsonIgnore
+	private Instant lastModified;
+
+	// a detached copy, so the instance kept in the cache is never handed to a caller
+	public ProductDto(ProductDto other) {
+		this(other.id, other.name, other.description, other.price, other.imgUrl, other.date,
+			new ArrayList<>(other.categories.stream().map(CategoryDto::new).toList()),
+			other.entityTag, other.lastModified);
+	}
+
     public ProductDto(Product entity) {
 		this.id = entity.getId();
 		this.name = entity.getName();
@@ -41,10 +57,23 @@ public class ProductDto {
 		this.price = entity.getPrice();
 		this.imgUrl = entity.getImgUrl();
 		this.date = entity.getDate();
+		this.entityTag = entity.getId() + "-" + entity.getVersion();
+		this.lastModified = entity.getUpdatedAt() != null ? entity.getUpdatedAt() : entity.getCreatedAt();
 	}
 	
 	public ProductDto(Product entity, Set<Category> categories) {
 		this(entity);
 		categories.forEach(c -> this.categories.add(new CategoryDto(c)));
+
+		// a category rename changes this representation too
+		StringBuilder tag = new StringBuilder(entityTag);
+		categories.stream()
+			.sorted(Comparator.comparing(Category::getId))
+			.forEach(c -> tag.append('-').append(c.getId()).append('.').append(c.getVersion()));
+		this.entityTag = tag.toString();
+		this.lastModified = this.categories.stream()
+			.map(CategoryDto::getLastModified)
+			.filter(Objects::nonNull)
+			.reduce(lastModified, (a, b) -> a == null || b.isAfter(a) ? b : a);
 	}
 }
@@ -0,0 +1,33 @@
+package com.samuel.loja.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Count-free page: tells whether there is a next page without running a count query.
+ * {@code approximateTotal} is only filled on request, from a periodically refreshed count.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceDto<T> {
+
+    private List<T> content;
+    private Integer number;
+    private Integer size;
+    private boolean hasNext;
+    private Long approximateTotal;
+
+    public SliceDto(Slice<T> slice, Long approximateTotal) {
+        this.content = slice.getContent();
+        this.number = slice.getNumber();
+        this.size = slice.getSize();
+        this.hasNext = slice.hasNext();
+        this.approximateTotal = approximateTotal;
+    }
+}
@@ -27,6 +27,12 @@ public class UserDto {
         this.email = email;
     }
 
+    // a detached copy, so the profile kept in the cache is never handed to a caller
+    public UserDto(UserDto other) {
+        this(other.id, other.firstName, other.lastName, other.email);
+        other.roles.forEach(r -> roles.add(new RoleDTO(r.getId(), r.getAuthority())));
+    }
+
     public UserDto(User user) {
         id = user.getId();
         firstName = user.getFirstName();
@@ -11,6 +11,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.ColumnDefault;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,6 +28,10 @@ public class Category {
 
     private String name;    
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
     private Instant createdAt;
 
@@ -3,33 +3,52 @@ package com.samuel.loja.entities;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Set;
 
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.ColumnDefault;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity(name = "tb_product")
+@Table(name = "tb_product", indexes = {
+    @Index(name = "idx_product_name_id", columnList = "name, id"),
+    @Index(name = "idx_product_price_id", columnList = "price, id"),
+    @Index(name = "idx_product_date_id", columnList = "date, id")
+})
 public class Product {
 
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // a sequence (unlike IDENTITY) lets Hibernate batch inserts; ids are handed out 50 at a time
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "tb_product_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -44,12 +63,32 @@ public class Product {
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant date;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant createdAt;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
     @ManyToMany
     @JoinTable(name = "tb_product_category",
         joinColumns = @JoinColumn(name = "product_id"),
-        inverseJoinColumns = @JoinColumn(name = "category_id"))
+        inverseJoinColumns = @JoinColumn(name = "category_id"),
+        indexes = @Index(name = "idx_product_category_category_product", columnList = "category_id, product_id"))
     Set<Category> categories = new HashSet<>();
 
+    // lower-cased words of the name, kept in step with it: the name filter is a prefix range scan
+    // over (word, product_id) instead of a "contains" check on every row
+    @ElementCollection
+    @CollectionTable(name = "tb_product_name_word",
+        joinColumns = @JoinColumn(name = "product_id"),
+        indexes = @Index(name = "idx_product_name_word_word_product", columnList = "word, product_id"))
+    @Column(name = "word")
+    Set<String> nameWords = new HashSet<>();
+
     public Product(Long id, String name, String description, BigDecimal price, String imgUrl, Instant date) {
         this.id = id;
         this.name = name;
@@ -58,4 +97,47 @@ public class Product {
         this.imgUrl = imgUrl;
         this.date = date;
     }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = Instant.now();
+        updateNameWords();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = Instant.now();
+        updateNameWords();
+    }
+
+    private void updateNameWords() {
+        Set<String> words = words(name);
+        if (nameWords == null) {
+            nameWords = new HashSet<>();
+        }
+        if (!nameWords.equals(words)) {
+            nameWords.retainAll(words);
+            nameWords.addAll(words);
+        }
+    }
+
+    /** The distinct lower-cased runs of letters and digits of {@code text}, in order. */
+    public static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
 }
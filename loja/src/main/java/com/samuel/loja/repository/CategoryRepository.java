@@ -1,9 +1,12 @@
 package com.samuel.loja.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.samuel.loja.entities.Category;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-    
+
+    Slice<Category> findSliceBy(Pageable pageable);
 }
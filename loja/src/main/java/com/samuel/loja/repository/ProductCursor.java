@@ -0,0 +1,38 @@
+package com.samuel.loja.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * Position of the last product returned by a keyset page: the sort key value plus the
+ * id as tie-breaker. Clients only ever see the opaque token produced by {@link #encode()}.
+ * A null {@code value} (a product without price or date) is encoded by leaving the value out.
+ */
+public record ProductCursor(ProductSortKey sortKey, Direction direction, Comparable<?> value, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + direction.name() + SEPARATOR + id;
+        if (value != null) {
+            raw += SEPARATOR + value;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            ProductSortKey sortKey = ProductSortKey.valueOf(parts[0]);
+            Direction direction = Direction.valueOf(parts[1]);
+            Long id = Long.valueOf(parts[2]);
+            Comparable<?> value = parts.length > 3 ? sortKey.parse(parts[3]) : null;
+            return new ProductCursor(sortKey, direction, value, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+}
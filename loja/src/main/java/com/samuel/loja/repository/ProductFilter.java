@@ -0,0 +1,40 @@
+package com.samuel.loja.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Optional restrictions for the product list. Null or empty fields are ignored; with
+ * {@link CategoryMatch#ALL} a product must belong to every listed category, with
+ * {@link CategoryMatch#ANY} to at least one of them.
+ */
+public record ProductFilter(String name, List<Long> categoryIds, CategoryMatch categoryMatch,
+                            BigDecimal minPrice, BigDecimal maxPrice) {
+
+    public enum CategoryMatch {
+        ANY, ALL;
+
+        public static CategoryMatch of(String value) {
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Modo de filtro de categoria não suportado: " + value);
+            }
+        }
+    }
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null, null);
+
+    public ProductFilter {
+        name = name == null || name.isBlank() ? null : name.strip();
+        categoryIds = categoryIds == null ? List.of() : categoryIds.stream().distinct().toList();
+        categoryMatch = categoryMatch == null ? CategoryMatch.ANY : categoryMatch;
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("O preço mínimo não pode ser maior que o preço máximo.");
+        }
+    }
+
+    public boolean isEmpty() {
+        return name == null && categoryIds.isEmpty() && minPrice == null && maxPrice == null;
+    }
+}
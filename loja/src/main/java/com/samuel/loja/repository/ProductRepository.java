@@ -1,9 +1,77 @@
 package com.samuel.loja.repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
+import com.samuel.loja.dto.ProductListDto;
 import com.samuel.loja.entities.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    @Query(value = """
+            SELECT new com.samuel.loja.dto.ProductListDto(obj.id, obj.name, obj.price, obj.imgUrl)
+            FROM tb_product obj
+            """,
+            countQuery = "SELECT COUNT(obj) FROM tb_product obj")
+    Page<ProductListDto> searchProductList(Pageable pageable);
+
+    @Query("""
+            SELECT new com.samuel.loja.dto.ProductListDto(obj.id, obj.name, obj.price, obj.imgUrl)
+            FROM tb_product obj
+            """)
+    Slice<ProductListDto> searchProductListSlice(Pageable pageable);
+
+    @Query("SELECT obj FROM tb_product obj LEFT JOIN FETCH obj.categories WHERE obj.id = :id")
+    Optional<Product> searchByIdWithCategories(Long id);
+
+    @Query("SELECT DISTINCT obj FROM tb_product obj LEFT JOIN FETCH obj.categories WHERE obj.id IN :ids")
+    List<Product> searchWithCategoriesByIdIn(List<Long> ids);
+
+    @Query("SELECT obj.id FROM tb_product obj JOIN obj.categories cat WHERE cat.id = :categoryId")
+    List<Long> searchIdsByCategory(Long categoryId);
+
+    @Query("""
+            SELECT new com.samuel.loja.dto.ProductListDto(obj.id, obj.name, obj.price, obj.imgUrl)
+            FROM tb_product obj
+            WHERE obj.id IN :ids
+            ORDER BY obj.id
+            """)
+    List<ProductListDto> searchProductListByIdIn(List<Long> ids);
+
+    /**
+     * Every product with its categories, one row per (product, category) and ordered by product
+     * id so the rows of a product are adjacent. Scalar rows keep the persistence context empty.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("""
+            SELECT obj.id, obj.name, obj.description, obj.price, obj.imgUrl, obj.date, cat.id, cat.name
+            FROM tb_product obj LEFT JOIN obj.categories cat
+            ORDER BY obj.id
+            """)
+    Stream<Object[]> streamCatalog();
+
+    /** (id, name) of every product, read by the name suggester at startup. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT obj.id, obj.name FROM tb_product obj")
+    Stream<Object[]> streamNames();
+
+    /** Id, list columns and description of every product, read by the search index at startup. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT obj.id, obj.name, obj.price, obj.imgUrl, obj.description FROM tb_product obj")
+    Stream<Object[]> streamSearchDocuments();
+
+    /** (product id, category id) pairs; the category id is null for products without categories. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT obj.id, cat.id FROM tb_product obj LEFT JOIN obj.categories cat")
+    Stream<Object[]> streamCategoryMemberships();
 }
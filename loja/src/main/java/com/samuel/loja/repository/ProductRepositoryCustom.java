@@ -0,0 +1,37 @@
+package com.samuel.loja.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.ProductListDto;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Keyset page: returns up to {@code size} products matching {@code filter}, ordered by
+     * {@code sortKey} and id, starting right after {@code after} (or from the beginning when it
+     * is null). Products without a sort value come last, in id order, read by a second query once
+     * the values run out. No OFFSET and no count query are issued, so every page costs the same
+     * index range scan. Only the list columns are selected. {@code size} must be positive.
+     */
+    CursorPageDto<ProductListDto> findNextPage(ProductFilter filter, ProductSortKey sortKey, Direction direction,
+                                               ProductCursor after, int size);
+
+    /**
+     * List columns of the products matching {@code filter}, as one query plus its count. The
+     * category restriction is a semi-join over the (category_id, product_id) index of the join
+     * table, whose primary key starts with product_id, and the price range uses the (price, id)
+     * index; each word of the name filter must start a word of the product name, a prefix range
+     * over the (word, product_id) index of the name words table.
+     */
+    Page<ProductListDto> findFiltered(ProductFilter filter, Pageable pageable);
+
+    /**
+     * Same query as {@link #findFiltered} without the count: one extra row is read to tell
+     * whether a next page exists.
+     */
+    Slice<ProductListDto> findFilteredSlice(ProductFilter filter, Pageable pageable);
+}
@@ -0,0 +1,213 @@
+package com.samuel.loja.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.entities.Category;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.ProductFilter.CategoryMatch;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPageDto<ProductListDto> findNextPage(ProductFilter filter, ProductSortKey sortKey, Direction direction,
+            ProductCursor after, int size) {
+        boolean ascending = direction.isAscending();
+
+        // products without a sort value come last in both directions, ordered by id, so the cursor
+        // still reaches them (the offset listing leaves their place to the database default: first
+        // on H2 ascending, first on PostgreSQL descending). They are read as a second segment once
+        // the values run out: each query is then a plain range over the (key, id) or primary key index
+        List<Tuple> rows;
+        if (after == null || after.value() != null) {
+            rows = new ArrayList<>(seekValues(filter, sortKey, ascending, after, size + 1));
+            if (rows.size() <= size) {
+                rows.addAll(seekNulls(filter, sortKey, ascending, null, size + 1 - rows.size()));
+            }
+        } else {
+            rows = seekNulls(filter, sortKey, ascending, after.id(), size + 1);
+        }
+
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+
+        List<ProductListDto> content = rows.stream()
+            .map(t -> new ProductListDto(t.get(0, Long.class), t.get(1, String.class),
+                t.get(2, BigDecimal.class), t.get(3, String.class)))
+            .toList();
+
+        String next = null;
+        if (hasNext) {
+            Tuple last = rows.get(rows.size() - 1);
+            next = new ProductCursor(sortKey, direction, (Comparable<?>) last.get(4), last.get(0, Long.class)).encode();
+        }
+        return new CursorPageDto<>(content, size, hasNext, next);
+    }
+
+    /** Products with a sort value, after the cursor's (value, id) in index order. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Tuple> seekValues(ProductFilter filter, ProductSortKey sortKey, boolean ascending, ProductCursor after,
+            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+
+        Path<Comparable> key = root.get(sortKey.getAttribute());
+        Path<Long> id = root.get("id");
+
+        Predicate where = cb.and(filterPredicate(cb, query, root, filter), cb.isNotNull(key));
+        if (after != null) {
+            // (key, id) > (value, id) spelled out: the first term bounds the index range scan,
+            // the rest only skips the rows tied with the cursor's value
+            Comparable value = after.value();
+            Predicate seek = ascending
+                ? cb.and(cb.greaterThanOrEqualTo(key, value),
+                    cb.or(cb.greaterThan(key, value), cb.greaterThan(id, after.id())))
+                : cb.and(cb.lessThanOrEqualTo(key, value),
+                    cb.or(cb.lessThan(key, value), cb.lessThan(id, after.id())));
+            where = cb.and(where, seek);
+        }
+
+        query.multiselect(id, root.get("name"), root.get("price"), root.get("imgUrl"), key).where(where);
+        query.orderBy(ascending
+            ? List.of(cb.asc(key), cb.asc(id))
+            : List.of(cb.desc(key), cb.desc(id)));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    /** Products without a sort value, after {@code afterId} (or from the first one when it is null) in id order. */
+    private List<Tuple> seekNulls(ProductFilter filter, ProductSortKey sortKey, boolean ascending, Long afterId,
+            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+
+        Path<?> key = root.get(sortKey.getAttribute());
+        Path<Long> id = root.get("id");
+
+        Predicate where = cb.and(filterPredicate(cb, query, root, filter), cb.isNull(key));
+        if (afterId != null) {
+            where = cb.and(where, ascending ? cb.greaterThan(id, afterId) : cb.lessThan(id, afterId));
+        }
+
+        query.multiselect(id, root.get("name"), root.get("price"), root.get("imgUrl"), key).where(where);
+        query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public Page<ProductListDto> findFiltered(ProductFilter filter, Pageable pageable) {
+        List<ProductListDto> content = listFiltered(filter, pageable, pageable.getPageSize());
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countFiltered(filter));
+    }
+
+    @Override
+    public Slice<ProductListDto> findFilteredSlice(ProductFilter filter, Pageable pageable) {
+        List<ProductListDto> content = listFiltered(filter, pageable, pageable.getPageSize() + 1);
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private List<ProductListDto> listFiltered(ProductFilter filter, Pageable pageable, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListDto> query = cb.createQuery(ProductListDto.class);
+        Root<Product> root = query.from(Product.class);
+
+        query.select(cb.construct(ProductListDto.class,
+                root.get("id"), root.get("name"), root.get("price"), root.get("imgUrl")))
+            .where(filterPredicate(cb, query, root, filter))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        return entityManager.createQuery(query)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    private long countFiltered(ProductFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        query.select(cb.count(root)).where(filterPredicate(cb, query, root, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Predicate filterPredicate(CriteriaBuilder cb, AbstractQuery<?> query, Root<Product> root, ProductFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+        }
+        if (filter.name() != null) {
+            Set<String> words = Product.words(filter.name());
+            if (words.isEmpty()) {
+                predicates.add(cb.disjunction());
+            }
+            // every word of the filter starts a word of the name: one (word, product_id) range each
+            for (String word : words) {
+                Subquery<Long> matching = query.subquery(Long.class);
+                Root<Product> product = matching.from(Product.class);
+                Join<Product, String> nameWord = product.join("nameWords");
+                matching.select(product.get("id")).where(cb.like(nameWord, word + "%"));
+                predicates.add(root.get("id").in(matching));
+            }
+        }
+        if (!filter.categoryIds().isEmpty()) {
+            Subquery<Long> matching = query.subquery(Long.class);
+            Root<Product> product = matching.from(Product.class);
+            Join<Product, Category> category = product.join("categories");
+            matching.select(product.get("id")).where(category.get("id").in(filter.categoryIds()));
+            if (filter.categoryMatch() == CategoryMatch.ALL) {
+                matching.groupBy(product.get("id"))
+                    .having(cb.equal(cb.count(product.get("id")), (long) filter.categoryIds().size()));
+            }
+            predicates.add(root.get("id").in(matching));
+        }
+
+        return cb.and(predicates.toArray(Predicate[]::new));
+    }
+}
@@ -0,0 +1,52 @@
+package com.samuel.loja.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Orderings supported by the keyset (cursor) listing of products. Each key maps to
+ * the entity attribute used in the ORDER BY and knows how to read its value back
+ * from a cursor token.
+ */
+public enum ProductSortKey {
+
+    NAME("name") {
+        @Override
+        public Comparable<?> parse(String value) {
+            return value;
+        }
+    },
+    PRICE("price") {
+        @Override
+        public Comparable<?> parse(String value) {
+            return new BigDecimal(value);
+        }
+    },
+    DATE("date") {
+        @Override
+        public Comparable<?> parse(String value) {
+            return Instant.parse(value);
+        }
+    };
+
+    private final String attribute;
+
+    ProductSortKey(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public abstract Comparable<?> parse(String value);
+
+    public static ProductSortKey of(String orderBy) {
+        for (ProductSortKey key : values()) {
+            if (key.attribute.equalsIgnoreCase(orderBy)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Ordenação não suportada: " + orderBy);
+    }
+}
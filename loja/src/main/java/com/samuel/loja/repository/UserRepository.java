@@ -2,7 +2,11 @@ package com.samuel.loja.repository;
 
 import com.samuel.loja.entities.User;
 import com.samuel.loja.projections.UserDetailsProjection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
@@ -11,6 +15,32 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT obj FROM User obj LEFT JOIN FETCH obj.roles WHERE obj.id = :id")
+    Optional<User> searchByIdWithRoles(Long id);
+
+    @Query("SELECT obj FROM User obj LEFT JOIN FETCH obj.roles WHERE obj.email = :email")
+    Optional<User> searchByEmailWithRoles(String email);
+
+    @Query("SELECT obj.email FROM User obj WHERE obj.id = :id")
+    Optional<String> searchEmailById(Long id);
+
+    @Modifying
+    @Query("UPDATE User obj SET obj.password = :password WHERE obj.email = :email")
+    int updatePassword(String email, String password);
+
+    /**
+     * First phase of a paged listing: pages over ids only, so LIMIT/OFFSET runs in the
+     * database. The associations are then loaded by {@link #searchWithRolesByIdIn}.
+     */
+    @Query(value = "SELECT obj.id FROM User obj", countQuery = "SELECT COUNT(obj) FROM User obj")
+    Page<Long> searchIds(Pageable pageable);
+
+    @Query("SELECT obj.id FROM User obj")
+    Slice<Long> searchIdsSlice(Pageable pageable);
+
+    @Query("SELECT obj FROM User obj LEFT JOIN FETCH obj.roles WHERE obj.id IN :ids")
+    List<User> searchWithRolesByIdIn(List<Long> ids);
+
     @Query(nativeQuery = true, value = """
             SELECT tb_user.email AS username, tb_user.password, tb_role.id AS roleid, tb_role.authority
             FROM tb_user
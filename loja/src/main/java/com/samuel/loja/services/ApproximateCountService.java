@@ -0,0 +1,51 @@
+package com.samuel.loja.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.samuel.loja.repository.CategoryRepository;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the row count of the listed tables refreshed in the background, so list endpoints
+ * can report an approximate total without issuing a {@code count(*)} per request.
+ */
+@Service
+@Slf4j
+public class ApproximateCountService {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String USERS = "users";
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Long> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Last known count, or null while the first refresh has not completed yet.
+     */
+    public Long getApproximateCount(String table) {
+        return counts.get(table);
+    }
+
+    @Scheduled(fixedDelayString = "${loja.approximate-count.refresh-interval:60000}")
+    public void refresh() {
+        counts.put(PRODUCTS, productRepository.count());
+        counts.put(CATEGORIES, categoryRepository.count());
+        counts.put(USERS, userRepository.count());
+        log.debug("Approximate counts refreshed: {}", counts);
+    }
+}
@@ -1,18 +1,28 @@
 package com.samuel.loja.services;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.samuel.loja.config.CacheConfig;
 import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.SliceDto;
 import com.samuel.loja.entities.Category;
 import com.samuel.loja.repository.CategoryRepository;
+import com.samuel.loja.repository.ProductRepository;
 import com.samuel.loja.services.exceptions.DataBaseException;
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
 
@@ -21,6 +31,12 @@ public class CategoryService {
     
     @Autowired
     private CategoryRepository repository;
+    @Autowired
+    private ApproximateCountService approximateCountService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CacheManager cacheManager;
 
     @Transactional(readOnly = true)
     public Page<CategoryDto> findAllPaged(PageRequest pageRequest) {
@@ -29,6 +45,15 @@ public class CategoryService {
         return list.map(c -> new CategoryDto(c));
     }
 
+    @Transactional(readOnly = true)
+    public SliceDto<CategoryDto> findAllSliced(PageRequest pageRequest, boolean approximateTotal) {
+        Slice<CategoryDto> slice = repository.findSliceBy(pageRequest).map(CategoryDto::new);
+        Long total = approximateTotal ? approximateCountService.getApproximateCount(ApproximateCountService.CATEGORIES) : null;
+
+        return new SliceDto<>(slice, total);
+    }
+
+    @Cacheable(value = CacheConfig.CATEGORIES, key = "#id")
     @Transactional(readOnly = true)
     public CategoryDto findById(Long id) {
         Category category = getCategory(id);
@@ -36,6 +61,7 @@ public class CategoryService {
         return new CategoryDto(category);
     }
 
+    @CachePut(value = CacheConfig.CATEGORIES, key = "#result.id")
     @Transactional
     public CategoryDto insert(CategoryDto categoryDto) {
         var category = Category.builder()
@@ -48,11 +74,15 @@ public class CategoryService {
         return new CategoryDto(categorySaved);
     }
 
+    @CacheEvict(value = CacheConfig.CATEGORIES, key = "#id")
     @Transactional
     public CategoryDto update(Long id, CategoryDto categoryDto) {
         Category category = getCategory(id);
 
         BeanUtils.copyProperties(categoryDto, category, "id");
+        // flushed first, so the returned ETag carries the incremented @Version the next GET serves
+        category = repository.saveAndFlush(category);
+        evictProductsOfCategory(id);
 
         return new CategoryDto(category);
     }
@@ -62,6 +92,7 @@ public class CategoryService {
             .orElseThrow(() -> new ResourceNotFoundException("Não há recurso para o id: " + id));
     }
 
+    @CacheEvict(value = CacheConfig.CATEGORIES, key = "#id")
     public void delete(Long id) {        
         
         try {
@@ -71,4 +102,11 @@ public class CategoryService {
             throw new DataBaseException("Integrity violation.");
         } 
     }
+
+    // cached ProductDto carry the category name, so a rename must drop the products that reference it
+    private void evictProductsOfCategory(Long categoryId) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        List<Long> productIds = productRepository.searchIdsByCategory(categoryId);
+        productIds.forEach(products::evict);
+    }
 }
@@ -1,15 +1,40 @@
 package com.samuel.loja.services;
 
+import com.samuel.loja.config.CacheConfig;
+import com.samuel.loja.controllers.exceptions.FieldMessage;
+import com.samuel.loja.dto.BulkResultDto;
 import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.FacetedPageDto;
 import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.dto.SliceDto;
 import com.samuel.loja.entities.Category;
 import com.samuel.loja.repository.CategoryRepository;
+import com.samuel.loja.repository.ProductCursor;
+import com.samuel.loja.repository.ProductFilter;
+import com.samuel.loja.repository.ProductSortKey;
+import com.samuel.loja.services.events.ProductChangedEvent;
+import com.samuel.loja.services.search.CategoryBitmapIndex;
+import com.samuel.loja.services.search.ProductNameSuggester;
+import com.samuel.loja.services.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,8 +44,20 @@ import com.samuel.loja.repository.ProductRepository;
 import com.samuel.loja.services.exceptions.DataBaseException;
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -30,14 +67,87 @@ public class ProductService {
     private ProductRepository repository;
     @Autowired
     private CategoryRepository categoryRepository;
+    @Autowired
+    private ApproximateCountService approximateCountService;
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    @Autowired
+    private ProductNameSuggester nameSuggester;
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${loja.products.bulk.max-size:1000}")
+    private int bulkMaxSize;
+
+    @Value("${loja.products.cursor.max-size:100}")
+    private int cursorMaxSize;
+
+    @Transactional(readOnly = true)
+    public Page<ProductListDto> findAllPaged(ProductFilter filter, PageRequest pageRequest) {
+        if (filter.isEmpty()) {
+            return repository.searchProductList(pageRequest);
+        }
+        return repository.findFiltered(filter, pageRequest);
+    }
+
+    @Transactional(readOnly = true)
+    public SliceDto<ProductListDto> findAllSliced(ProductFilter filter, PageRequest pageRequest, boolean approximateTotal) {
+        if (approximateTotal && !filter.isEmpty()) {
+            // the estimate comes from the table statistics, it would count the products outside the filter
+            throw new IllegalArgumentException("O total aproximado não está disponível com filtros.");
+        }
+        Slice<ProductListDto> slice = filter.isEmpty()
+            ? repository.searchProductListSlice(pageRequest)
+            : repository.findFilteredSlice(filter, pageRequest);
+        Long total = approximateTotal ? approximateCountService.getApproximateCount(ApproximateCountService.PRODUCTS) : null;
+
+        return new SliceDto<>(slice, total);
+    }
 
     @Transactional(readOnly = true)
-    public Page<ProductListDto> findAllPaged(PageRequest pageRequest) {
-        Page<Product> list = repository.findAll(pageRequest);
+    public CursorPageDto<ProductListDto> findAllByCursor(ProductFilter filter, String after, int size, ProductSortKey sortKey,
+                                                         Direction direction) {
+        if (size <= 0 || size > cursorMaxSize) {
+            throw new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + cursorMaxSize + ".");
+        }
+        ProductCursor cursor = null;
+        if (after != null && !after.isBlank()) {
+            cursor = ProductCursor.decode(after);
+            if (cursor.sortKey() != sortKey || cursor.direction() != direction) {
+                throw new IllegalArgumentException("O cursor não corresponde à ordenação solicitada.");
+            }
+        }
 
-        return list.map(c -> new ProductListDto(c));
+        return repository.findNextPage(filter, sortKey, direction, cursor, size);
     }
 
+    @Transactional(readOnly = true)
+    public FacetedPageDto<ProductListDto> browse(List<Long> categoryIds, List<Long> excludedCategoryIds, int page, int size) {
+        CategoryBitmapIndex.Selection selection = categoryIndex.select(categoryIds, excludedCategoryIds, (long) page * size, size);
+        List<ProductListDto> content = selection.ids().isEmpty()
+            ? List.of()
+            : repository.searchProductListByIdIn(selection.ids());
+
+        return new FacetedPageDto<>(content, page, size, selection.total(), selection.facets());
+    }
+
+    public List<ProductListDto> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return nameSuggester.suggest(prefix, limit);
+    }
+
+    @Cacheable(value = CacheConfig.PRODUCTS, key = "#id")
     @Transactional(readOnly = true)
     public ProductDto findById(Long id) {
         Product product = getProduct(id);
@@ -45,33 +155,160 @@ public class ProductService {
         return new ProductDto(product, product.getCategories());
     }
 
+    @CachePut(value = CacheConfig.PRODUCTS, key = "#result.id")
     @Transactional
     public ProductDto insert(ProductDto productDto) {
         Product product = new Product();
         copyDtoToEntity(productDto, product);
 
         Product productSaved = repository.save(product);
-        return new ProductDto(productSaved, productSaved.getCategories());
+        ProductDto dto = new ProductDto(productSaved, productSaved.getCategories());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(dto));
+        return dto;
     }
 
+    @CacheEvict(value = CacheConfig.PRODUCTS, key = "#id")
     @Transactional
     public ProductDto update(Long id, ProductDto productDto) {
         Product product = getProduct(id);
 
         BeanUtils.copyProperties(productDto, product, "id");
+        // flushed first, so the returned ETag carries the incremented @Version the next GET serves
+        product = repository.saveAndFlush(product);
 
-        return new ProductDto(product, product.getCategories());
+        ProductDto dto = new ProductDto(product, product.getCategories());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(dto));
+        return dto;
+    }
+
+    /**
+     * Inserts the elements without id and updates the ones with id, in one transaction so the
+     * inserts go to the database as JDBC batches. Invalid elements, unknown ids and unknown
+     * categories are reported per item and skipped; they do not abort the rest of the batch.
+     */
+    @Transactional
+    public BulkResultDto saveAll(List<ProductDto> productDtos) {
+        if (productDtos.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("O lote excede o limite de " + bulkMaxSize + " produtos.");
+        }
+
+        List<Long> ids = productDtos.stream().map(ProductDto::getId).filter(Objects::nonNull).distinct().toList();
+        Map<Long, Product> existing = ids.isEmpty() ? Map.of() : repository.searchWithCategoriesByIdIn(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Long> categoryIds = productDtos.stream()
+            .filter(dto -> dto.getCategories() != null)
+            .flatMap(dto -> dto.getCategories().stream())
+            .map(CategoryDto::getId).filter(Objects::nonNull).distinct().toList();
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+            .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        BulkResultDto.Item[] items = new BulkResultDto.Item[productDtos.size()];
+        List<Product> products = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            ProductDto dto = productDtos.get(i);
+            List<FieldMessage> errors = new ArrayList<>();
+            validator.validate(dto).forEach(v -> errors.add(new FieldMessage(v.getPropertyPath().toString(), v.getMessage())));
+
+            Product product = dto.getId() == null ? new Product() : existing.get(dto.getId());
+            if (product == null) {
+                errors.add(new FieldMessage("id", "Não há recurso para o id: " + dto.getId()));
+            }
+            if (dto.getCategories() != null) {
+                dto.getCategories().stream()
+                    .filter(c -> !categories.containsKey(c.getId()))
+                    .forEach(c -> errors.add(new FieldMessage("categories", "Categoria não encontrada: " + c.getId())));
+            }
+            if (!errors.isEmpty()) {
+                items[i] = new BulkResultDto.Item(i, dto.getId(), errors);
+                continue;
+            }
+
+            copyFields(dto, product);
+            product.getCategories().clear();
+            dto.getCategories().forEach(c -> product.getCategories().add(categories.get(c.getId())));
+            products.add(product);
+            indexes.add(i);
+        }
+
+        repository.saveAll(products);
+
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        for (int j = 0; j < products.size(); j++) {
+            Product product = products.get(j);
+            int index = indexes.get(j);
+            if (productDtos.get(index).getId() != null) {
+                cache.evict(product.getId());
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.saved(new ProductDto(product, product.getCategories())));
+            items[index] = new BulkResultDto.Item(index, product.getId(), List.of());
+        }
+
+        log.info("Bulk save of {} products: {} saved, {} failed", productDtos.size(), products.size(),
+            productDtos.size() - products.size());
+        return new BulkResultDto(products.size(), productDtos.size() - products.size(), Arrays.asList(items));
+    }
+
+    /**
+     * Writes every product with its categories to {@code out} as NDJSON, one {@link ProductDto}
+     * per line. Rows come from a forward-only cursor and each product is written as soon as its
+     * last row is read, so memory use does not depend on the size of the catalog.
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Object[]> rows = repository.streamCatalog();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            ProductDto current = null;
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                Long id = (Long) row[0];
+                if (current == null || !current.getId().equals(id)) {
+                    if (current != null) {
+                        writeLine(generator, current);
+                        count++;
+                    }
+                    current = ProductDto.builder()
+                        .id(id)
+                        .name((String) row[1])
+                        .description((String) row[2])
+                        .price((BigDecimal) row[3])
+                        .imgUrl((String) row[4])
+                        .date((Instant) row[5])
+                        .categories(new ArrayList<>())
+                        .build();
+                }
+                if (row[6] != null) {
+                    current.getCategories().add(new CategoryDto((Long) row[6], (String) row[7]));
+                }
+            }
+            if (current != null) {
+                writeLine(generator, current);
+                count++;
+            }
+        }
+        log.info("Exported {} products", count);
+        return count;
+    }
+
+    private static void writeLine(JsonGenerator generator, ProductDto product) throws IOException {
+        generator.writeObject(product);
+        generator.writeRaw('\n');
     }
 
     public Product getProduct(Long id) {
-        return repository.findById(id)
+        return repository.searchByIdWithCategories(id)
             .orElseThrow(() -> new ResourceNotFoundException("Não há recurso para o id: " + id));
     }
 
+    @CacheEvict(value = CacheConfig.PRODUCTS, key = "#id")
     public void delete(Long id) {
         try {
             if (repository.existsById(id)) {
                 repository.deleteById(id);
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
                 return;
             } else {
                 throw new ResourceNotFoundException("Resource not found.");
@@ -83,16 +320,23 @@ public class ProductService {
 
     private void copyDtoToEntity(ProductDto dto, Product entity) {
 
+        copyFields(dto, entity);
+
+        List<Long> categoryIds = dto.getCategories().stream().map(CategoryDto::getId).toList();
+        List<Category> categories = categoryRepository.findAllById(categoryIds);
+        if (categories.size() != new HashSet<>(categoryIds).size()) {
+            throw new ResourceNotFoundException("Categoria não encontrada.");
+        }
+
+        entity.getCategories().clear();
+        entity.getCategories().addAll(categories);
+    }
+
+    private void copyFields(ProductDto dto, Product entity) {
         entity.setName(dto.getName());
         entity.setDescription(dto.getDescription());
         entity.setDate(dto.getDate());
         entity.setImgUrl(dto.getImgUrl());
         entity.setPrice(dto.getPrice());
-
-        entity.getCategories().clear();
-        for (CategoryDto catDto : dto.getCategories()) {
-            Category category = categoryRepository.getReferenceById(catDto.getId());
-            entity.getCategories().add(category);
-        }
     }
 }
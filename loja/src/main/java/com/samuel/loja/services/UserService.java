@@ -1,6 +1,8 @@
 package com.samuel.loja.services;
 
+import com.samuel.loja.config.CacheConfig;
 import com.samuel.loja.dto.RoleDTO;
+import com.samuel.loja.dto.SliceDto;
 import com.samuel.loja.dto.UserDto;
 import com.samuel.loja.dto.UserInsertDTO;
 import com.samuel.loja.entities.Role;
@@ -8,54 +10,86 @@ import com.samuel.loja.entities.User;
 import com.samuel.loja.projections.UserDetailsProjection;
 import com.samuel.loja.repository.RoleRepository;
 import com.samuel.loja.repository.UserRepository;
+import com.samuel.loja.services.events.UserChangedEvent;
 import com.samuel.loja.services.exceptions.DataBaseException;
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private RoleRepository roleRepository;
+    @Autowired
+    private ApproximateCountService approximateCountService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Page<UserDto> findAllPaged(Pageable pageable) {
-        Page<User> list = userRepository.findAll(pageable);
+        Page<Long> ids = userRepository.searchIds(pageable);
+        Map<Long, User> users = findWithRoles(ids.getContent());
+
+        return ids.map(id -> new UserDto(users.get(id)));
+    }
+
+    @Transactional(readOnly = true)
+    public SliceDto<UserDto> findAllSliced(Pageable pageable, boolean approximateTotal) {
+        Slice<Long> ids = userRepository.searchIdsSlice(pageable);
+        Map<Long, User> users = findWithRoles(ids.getContent());
+        Slice<UserDto> slice = ids.map(id -> new UserDto(users.get(id)));
+        Long total = approximateTotal ? approximateCountService.getApproximateCount(ApproximateCountService.USERS) : null;
 
-        return list.map(c -> new UserDto(c));
+        return new SliceDto<>(slice, total);
     }
 
     @Transactional(readOnly = true)
     public UserDto findById(Long id) {
-        User user = getUser(id);
+        User user = userRepository.searchByIdWithRoles(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Não há recurso para o id: " + id));
         return new UserDto(user);
     }
 
     @Transactional
     public UserDto insert(UserInsertDTO userInsertDTO) {
         validarInsertEmail(userInsertDTO);
+        evictProfile(userInsertDTO.getEmail());
         User user = new User();
         copyDtoToEntity(userInsertDTO, user);
-        user.setPassword(userInsertDTO.getPassword());
+        user.setPassword(passwordEncoder.encode(userInsertDTO.getPassword()));
         User userSaved = userRepository.save(user);
         return new UserDto(userSaved);
     }
@@ -65,6 +99,8 @@ public class UserService implements UserDetailsService {
         validarUpdateEmail(id, userDto);
         try {
             User user = userRepository.getReferenceById(id);
+            evictProfile(user.getEmail());
+            eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
 //        BeanUtils.copyProperties(userDto, user, "id");
             copyDtoToEntity(userDto, user);
             return new UserDto(user);
@@ -81,6 +117,10 @@ public class UserService implements UserDetailsService {
     public void delete(Long id) {
         try {
             if (userRepository.existsById(id)) {
+                userRepository.searchEmailById(id).ifPresent(email -> {
+                    evictProfile(email);
+                    eventPublisher.publishEvent(new UserChangedEvent(email));
+                });
                 userRepository.deleteById(id);
             } else {
                 throw new ResourceNotFoundException("Resource not found.");
@@ -97,10 +137,16 @@ public class UserService implements UserDetailsService {
         user.setEmail(userDto.getEmail());
 
         user.getRoles().clear();
-        for (RoleDTO roleDTO : userDto.getRoles()) {
-            Role role = roleRepository.getReferenceById(roleDTO.getId());
-            user.getRoles().add(role);
+        List<Long> roleIds = userDto.getRoles().stream().map(RoleDTO::getId).toList();
+        user.getRoles().addAll(roleRepository.findAllById(roleIds));
+    }
+
+    private Map<Long, User> findWithRoles(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
         }
+        return userRepository.searchWithRolesByIdIn(ids).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
     private void validarUpdateEmail(Long id, UserDto dto) {
@@ -120,6 +166,8 @@ public class UserService implements UserDetailsService {
     }
 
 
+    // not found is an exception, so unknown emails are never cached
+    @Cacheable(value = CacheConfig.USER_DETAILS, key = "#username")
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         List<UserDetailsProjection> result = userRepository.searchUserAndRolesByEmail(username);
@@ -135,21 +183,52 @@ public class UserService implements UserDetailsService {
         return user;
     }
 
+    // a login found the hash with an outdated cost; the cached UserDetails still hold the old one.
+    // The password itself is unchanged, so the user's other sessions are kept.
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evictProfile(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
+            .build();
+    }
+
     protected User authenticated() {
+        try {
+            return userRepository.searchByEmailWithRoles(authenticatedUsername()).get();
+        } catch (Exception e) {
+            throw new UsernameNotFoundException("Email not found");
+        }
+    }
+
+    // the username claim of the verified token, no database access
+    private String authenticatedUsername() {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             Jwt jwtPrincipal = (Jwt) authentication.getPrincipal();
-            String username = jwtPrincipal.getClaim("username");
-
-            return userRepository.findByEmail(username).get();
+            return jwtPrincipal.getClaim("username");
         } catch (Exception e) {
             throw new UsernameNotFoundException("Email not found");
         }
     }
 
-    @Transactional(readOnly = true)
+    // called on every page load of the frontend: a cached profile is returned without opening a transaction
     public UserDto getMe(){
-        var user = authenticated();
-        return new UserDto(user);
+        String username = authenticatedUsername();
+        Cache profiles = cacheManager.getCache(CacheConfig.USERS);
+        UserDto user = profiles.get(username, UserDto.class);
+        if (user == null) {
+            user = new UserDto(authenticated());
+            profiles.put(username, user);
+        }
+        return user;
+    }
+
+    // applied after commit by the transaction aware cache manager
+    private void evictProfile(String email) {
+        cacheManager.getCache(CacheConfig.USERS).evict(email);
+        cacheManager.getCache(CacheConfig.USER_DETAILS).evict(email);
     }
 }
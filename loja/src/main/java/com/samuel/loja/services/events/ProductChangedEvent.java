@@ -0,0 +1,22 @@
+package com.samuel.loja.services.events;
+
+import com.samuel.loja.dto.ProductDto;
+
+/**
+ * Published by {@code ProductService} on every write. In-memory indexes listen to it after
+ * commit to stay in sync with the database. {@code product} is null when the product was deleted.
+ */
+public record ProductChangedEvent(Long id, ProductDto product) {
+
+    public static ProductChangedEvent saved(ProductDto product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long id) {
+        return new ProductChangedEvent(id, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
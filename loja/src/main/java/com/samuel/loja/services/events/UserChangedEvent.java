@@ -0,0 +1,8 @@
+package com.samuel.loja.services.events;
+
+/**
+ * Published by {@code UserService} when a user is updated or deleted. {@code email} is the
+ * username the user had before the change, the one its issued tokens were granted to.
+ */
+public record UserChangedEvent(String email) {
+}
@@ -0,0 +1,216 @@
+package com.samuel.loja.services.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.samuel.loja.controllers.exceptions.FieldMessage;
+import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.ImportReportDto;
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.entities.Category;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.CategoryRepository;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports products from CSV with the header {@code name,description,price,imgUrl,date,categories}
+ * ({@code categories} holds category names separated by {@code |}). Rows are parsed as a stream
+ * and handled in chunks: each chunk is validated in parallel against the {@link ProductDto}
+ * rules, category names are resolved against a map loaded once, and the valid rows are written
+ * in one transaction per chunk so inserts are batched and memory stays bounded.
+ */
+@Service
+@Slf4j
+public class ProductCsvImporter {
+
+    static final List<String> COLUMNS = List.of("name", "description", "price", "imgUrl", "date", "categories");
+    private static final String CATEGORY_SEPARATOR = "\\|";
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${loja.products.import.chunk-size:1000}")
+    private int chunkSize;
+
+    private record Row(long line, List<String> fields) {
+    }
+
+    private record Candidate(long line, ProductDto product, List<FieldMessage> errors) {
+    }
+
+    public ImportReportDto importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        Map<String, Integer> columns = readHeader(csv.next());
+        Map<String, Long> categoryIds = categoryRepository.findAll().stream()
+            .collect(Collectors.toMap(c -> categoryKey(c.getName()), Category::getId, (a, b) -> a));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long read = 0;
+        long imported = 0;
+        long rejected = 0;
+        List<ImportReportDto.RejectedRow> rejections = new ArrayList<>();
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        List<String> fields = csv.next();
+        while (fields != null) {
+            if (!(fields.size() == 1 && fields.get(0).isBlank())) {
+                chunk.add(new Row(csv.recordLine(), fields));
+                read++;
+            }
+            fields = csv.next();
+
+            if (chunk.size() == chunkSize || (fields == null && !chunk.isEmpty())) {
+                List<Candidate> candidates = chunk.parallelStream()
+                    .map(row -> toCandidate(row, columns, categoryIds))
+                    .toList();
+
+                List<ProductDto> valid = new ArrayList<>();
+                for (Candidate candidate : candidates) {
+                    if (candidate.errors().isEmpty()) {
+                        valid.add(candidate.product());
+                    } else {
+                        rejected++;
+                        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                            rejections.add(new ImportReportDto.RejectedRow(candidate.line(), candidate.errors()));
+                        }
+                    }
+                }
+                transaction.executeWithoutResult(status -> write(valid));
+                imported += valid.size();
+                chunk = new ArrayList<>(chunkSize);
+
+                log.info("Product import: {} rows read, {} imported, {} rejected, {} rows/s",
+                    read, imported, rejected, Math.round(rowsPerSecond(read, start)));
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new ImportReportDto(read, imported, rejected, elapsed, rowsPerSecond(read, start), rejections);
+    }
+
+    private void write(List<ProductDto> dtos) {
+        List<Long> ids = dtos.stream()
+            .flatMap(dto -> dto.getCategories().stream())
+            .map(CategoryDto::getId)
+            .distinct()
+            .toList();
+        Map<Long, Category> categories = categoryRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<Product> products = new ArrayList<>(dtos.size());
+        for (ProductDto dto : dtos) {
+            Product product = new Product(null, dto.getName(), dto.getDescription(), dto.getPrice(), dto.getImgUrl(), dto.getDate());
+            dto.getCategories().forEach(c -> product.getCategories().add(categories.get(c.getId())));
+            products.add(product);
+        }
+
+        repository.saveAll(products);
+        products.forEach(p -> eventPublisher.publishEvent(ProductChangedEvent.saved(new ProductDto(p, p.getCategories()))));
+    }
+
+    private Candidate toCandidate(Row row, Map<String, Integer> columns, Map<String, Long> categoryIds) {
+        List<FieldMessage> errors = new ArrayList<>();
+        ProductDto dto = new ProductDto();
+        dto.setName(field(row, columns, "name"));
+        dto.setDescription(field(row, columns, "description"));
+        dto.setImgUrl(field(row, columns, "imgUrl"));
+
+        String price = field(row, columns, "price");
+        try {
+            dto.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            errors.add(new FieldMessage("price", "Valor inválido: " + price));
+        }
+
+        String date = field(row, columns, "date");
+        try {
+            dto.setDate(date == null ? null : Instant.parse(date));
+        } catch (DateTimeParseException e) {
+            errors.add(new FieldMessage("date", "Valor inválido: " + date));
+        }
+
+        String categories = field(row, columns, "categories");
+        if (categories != null) {
+            for (String name : categories.split(CATEGORY_SEPARATOR)) {
+                if (name.isBlank()) {
+                    continue;
+                }
+                Long id = categoryIds.get(categoryKey(name));
+                if (id == null) {
+                    errors.add(new FieldMessage("categories", "Categoria não encontrada: " + name.strip()));
+                } else {
+                    dto.getCategories().add(new CategoryDto(id, name.strip()));
+                }
+            }
+        }
+
+        validator.validate(dto).forEach(v -> errors.add(new FieldMessage(v.getPropertyPath().toString(), v.getMessage())));
+        return new Candidate(row.line(), dto, errors);
+    }
+
+    private static Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("O arquivo CSV está vazio.");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip(), i);
+        }
+        List<String> missing = COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Colunas obrigatórias ausentes no CSV: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static String field(Row row, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if (index >= row.fields().size() || row.fields().get(index).isBlank()) {
+            return null;
+        }
+        return row.fields().get(index).strip();
+    }
+
+    private static String categoryKey(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static double rowsPerSecond(long rows, long start) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return seconds > 0 ? rows / seconds : 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.samuel.loja.services.imports;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.samuel.loja.dto.ImportReportDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports the CSV files given as {@code --import-products=<path>} when the application starts,
+ * e.g. {@code java -jar loja.jar --import-products=catalog.csv}. It runs once the in-memory
+ * indexes are built, so they apply each imported product as it is committed instead of holding
+ * the whole import in their change buffers until their build.
+ */
+@Component
+@Slf4j
+public class ProductImportRunner {
+
+    static final String OPTION = "import-products";
+
+    @Autowired
+    private ProductCsvImporter importer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onApplicationReady(ApplicationReadyEvent event) throws Exception {
+        run(new DefaultApplicationArguments(event.getArgs()));
+    }
+
+    void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        for (String path : args.getOptionValues(OPTION)) {
+            try (InputStream in = Files.newInputStream(Path.of(path))) {
+                ImportReportDto report = importer.importCsv(in);
+                log.info("Imported {}: {} of {} rows in {} ms ({} rows/s), {} rejected", path, report.getImported(),
+                    report.getRead(), report.getElapsedMillis(), Math.round(report.getRowsPerSecond()), report.getRejected());
+                report.getRejections().forEach(r -> log.warn("{} line {} rejected: {}", path, r.getLine(),
+                    r.getErrors().stream().map(e -> e.getFieldName() + " " + e.getMessage()).toList()));
+            }
+        }
+    }
+}
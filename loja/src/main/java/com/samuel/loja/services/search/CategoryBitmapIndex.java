@@ -0,0 +1,204 @@
+package com.samuel.loja.services.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One compressed bitmap of product ids per category, plus one with every product. Category
+ * filters become bitmap AND/ANDNOT operations and facet counts are intersection cardinalities,
+ * so no request aggregates over tb_product_category. Built once when the application is ready
+ * and kept up to date from {@link ProductChangedEvent}s after commit; the changes committed before
+ * the build finishes are replayed after it.
+ */
+@Component
+@Slf4j
+public class CategoryBitmapIndex {
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // replaced as a whole by build(), changed in place afterwards; both guarded by the lock
+    private RoaringBitmap products = new RoaringBitmap();
+    private Map<Long, RoaringBitmap> categories = new HashMap<>();
+    private final ProductChangeBuffer changes = new ProductChangeBuffer(this::apply);
+
+    /**
+     * Product ids of one page of a selection, in id order, with the selection size and its
+     * product count per category.
+     */
+    public record Selection(List<Long> ids, long total, Map<Long, Long> facets) {
+    }
+
+    // before ProductImportRunner, so the imported products are applied as they commit
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void build() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // loaded into local bitmaps and swapped in at the end: browse requests keep reading the
+        // current ones during the scan instead of waiting for it
+        int replayed = changes.build(() -> readOnly.executeWithoutResult(status -> {
+            RoaringBitmap loadedProducts = new RoaringBitmap();
+            Map<Long, RoaringBitmap> loadedCategories = new HashMap<>();
+            try (Stream<Object[]> memberships = repository.streamCategoryMemberships()) {
+                memberships.forEach(row -> {
+                    int productId = toInt((Long) row[0]);
+                    loadedProducts.add(productId);
+                    if (row[1] != null) {
+                        loadedCategories.computeIfAbsent((Long) row[1], id -> new RoaringBitmap()).add(productId);
+                    }
+                });
+            }
+            loadedProducts.runOptimize();
+            loadedCategories.values().forEach(RoaringBitmap::runOptimize);
+
+            lock.writeLock().lock();
+            try {
+                products = loadedProducts;
+                categories = loadedCategories;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }));
+        log.info("Category bitmap index built with {} products and {} categories in {} ms, {} changes replayed",
+            size(), categoryCount(), System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changes.accept(event);
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.id());
+        } else {
+            put(event.id(), event.product().getCategories().stream().map(CategoryDto::getId).toList());
+        }
+    }
+
+    /**
+     * Products in every category of {@code required} (all products when it is empty) and in
+     * none of {@code excluded}, paged by id.
+     */
+    public Selection select(List<Long> required, List<Long> excluded, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = products.clone();
+            for (Long categoryId : required) {
+                result.and(categories.getOrDefault(categoryId, new RoaringBitmap()));
+            }
+            for (Long categoryId : excluded) {
+                RoaringBitmap category = categories.get(categoryId);
+                if (category != null) {
+                    result.andNot(category);
+                }
+            }
+
+            Map<Long, Long> facets = new TreeMap<>();
+            categories.forEach((categoryId, category) -> {
+                long count = RoaringBitmap.andCardinality(result, category);
+                if (count > 0) {
+                    facets.put(categoryId, count);
+                }
+            });
+
+            return new Selection(page(result, offset, size), result.getLongCardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int categoryCount() {
+        lock.readLock().lock();
+        try {
+            return categories.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(Long productId, List<Long> categoryIds) {
+        int id = toInt(productId);
+        lock.writeLock().lock();
+        try {
+            removeFromCategories(id);
+            products.add(id);
+            categoryIds.forEach(categoryId -> categories.computeIfAbsent(categoryId, c -> new RoaringBitmap()).add(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long productId) {
+        int id = toInt(productId);
+        lock.writeLock().lock();
+        try {
+            removeFromCategories(id);
+            products.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromCategories(int id) {
+        categories.values().forEach(category -> category.remove(id));
+        categories.values().removeIf(RoaringBitmap::isEmpty);
+    }
+
+    private static List<Long> page(RoaringBitmap result, long offset, int size) {
+        List<Long> ids = new ArrayList<>(size);
+        if (offset >= result.getLongCardinality()) {
+            return ids;
+        }
+        PeekableIntIterator iterator = result.getIntIterator();
+        iterator.advanceIfNeeded(result.select((int) offset));
+        while (iterator.hasNext() && ids.size() < size) {
+            ids.add(Integer.toUnsignedLong(iterator.next()));
+        }
+        return ids;
+    }
+
+    // bitmaps hold 32-bit values; product ids are far below that
+    private static int toInt(Long productId) {
+        return Math.toIntExact(productId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.samuel.loja.services.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.samuel.loja.services.events.ProductChangedEvent;
+
+/**
+ * Holds the {@link ProductChangedEvent}s that arrive before an in-memory index has loaded its
+ * snapshot of the database and applies them, in order, once it has. A change committed while the
+ * snapshot is read therefore always lands after it, instead of being lost or overwritten by an
+ * older row of the snapshot.
+ */
+class ProductChangeBuffer {
+
+    private final Consumer<ProductChangedEvent> apply;
+    // null once the index is built: changes are applied as they come
+    private List<ProductChangedEvent> pending = new ArrayList<>();
+
+    ProductChangeBuffer(Consumer<ProductChangedEvent> apply) {
+        this.apply = apply;
+    }
+
+    synchronized void accept(ProductChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        } else {
+            apply.accept(event);
+        }
+    }
+
+    /**
+     * Runs the snapshot load, then replays the buffered changes, even when the load fails so the
+     * index keeps following the writes. Returns the number of changes replayed.
+     */
+    int build(Runnable load) {
+        try {
+            load.run();
+        } catch (RuntimeException e) {
+            replay();
+            throw e;
+        }
+        return replay();
+    }
+
+    private synchronized int replay() {
+        pending.forEach(apply);
+        int replayed = pending.size();
+        pending = null;
+        return replayed;
+    }
+}
@@ -0,0 +1,420 @@
+package com.samuel.loja.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prefix autocomplete over product names, served from memory. The words of the normalized names
+ * form one character trie, so a word shared by many names is stored once, and every node keeps
+ * the best {@value #TOP_K} products of its subtree: a one-word prefix is answered by walking its
+ * characters and reading that list, whatever the catalog size. Names starting with the prefix
+ * rank first, then shorter names. A prefix of several words is looked up by its first word and
+ * checked against the names. Writes committed before the build finishes are replayed after it.
+ */
+@Component
+@Slf4j
+public class ProductNameSuggester {
+
+    static final int TOP_K = 10;
+
+    // rank = not-first-word flag | name length | id, so sorted rank arrays are in suggestion order
+    private static final int ID_BITS = 40;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int MAX_LENGTH = (1 << 22) - 1;
+    private static final long NOT_FIRST_WORD = 1L << 62;
+
+    private static final long[] NO_RANKS = {};
+    private static final char[] NO_LABELS = {};
+    private static final Node[] NO_CHILDREN = {};
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, String> names = new HashMap<>();
+    private final ProductChangeBuffer changes = new ProductChangeBuffer(this::apply);
+
+    // before ProductImportRunner, so the imported products are applied as they commit
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void build() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // one pass over (id, name) rows: no OFFSET pages and no count queries
+        int replayed = changes.build(() -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = repository.streamNames()) {
+                rows.forEach(row -> put((Long) row[0], (String) row[1]));
+            }
+        }));
+        log.info("Product name suggester built with {} products in {} ms, {} changes replayed",
+            size(), System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changes.accept(event);
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.id());
+        } else {
+            put(event.id(), event.product().getName());
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = TextNormalizer.normalize(prefix).strip();
+        if (normalized.isEmpty() || limit <= 0 || !Character.isLetterOrDigit(normalized.charAt(0))) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int wordEnd = wordEnd(normalized, 0);
+            if (wordEnd == normalized.length()) {
+                Node node = find(normalized);
+                if (node == null) {
+                    return List.of();
+                }
+                List<String> suggestions = suggestions(node.top, limit);
+                if (suggestions.size() >= limit || node.top.length < TOP_K) {
+                    return suggestions;
+                }
+                // more than the kept top-k asked for, or names repeated among them
+                return suggestions(subtree(node), limit);
+            }
+
+            // the first word is complete: its products, filtered by the whole prefix
+            Node node = find(normalized.substring(0, wordEnd));
+            if (node == null) {
+                return List.of();
+            }
+            Set<String> suggestions = new LinkedHashSet<>();
+            for (long rank : node.postings) {
+                String name = names.get(rank & ID_MASK);
+                if (startsWordWith(TextNormalizer.normalize(name), normalized)) {
+                    suggestions.add(name);
+                    if (suggestions.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            return new ArrayList<>(suggestions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(Long id, String name) {
+        if (id < 0 || id > ID_MASK) {
+            throw new IllegalArgumentException("Product id out of range: " + id);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (name == null) {
+                return;
+            }
+            names.put(id, name);
+            words(id, name).forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long id) {
+        String name = names.remove(id);
+        if (name != null) {
+            words(id, name).forEach(this::delete);
+        }
+    }
+
+    // each distinct word of the name with the product's rank under it
+    private static Map<String, Long> words(long id, String name) {
+        String normalized = TextNormalizer.normalize(name);
+        long length = Math.min(name.length(), MAX_LENGTH);
+        Map<String, Long> words = new LinkedHashMap<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                int end = wordEnd(normalized, i);
+                long first = words.isEmpty() ? 0 : NOT_FIRST_WORD;
+                words.putIfAbsent(normalized.substring(i, end), first | length << ID_BITS | id);
+                i = end;
+            }
+        }
+        return words;
+    }
+
+    private static int wordEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean startsWordWith(String name, String prefix) {
+        for (int i = name.indexOf(prefix); i >= 0; i = name.indexOf(prefix, i + 1)) {
+            if (i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Node find(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node;
+    }
+
+    private void insert(String word, long rank) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].childOrAdd(word.charAt(i));
+        }
+        Node node = path[word.length()];
+        int at = -Arrays.binarySearch(node.postings, rank) - 1;
+        long[] postings = new long[node.postings.length + 1];
+        System.arraycopy(node.postings, 0, postings, 0, at);
+        postings[at] = rank;
+        System.arraycopy(node.postings, at, postings, at + 1, node.postings.length - at);
+        node.postings = postings;
+
+        // a rank left out of a child's top is left out of its parents' too
+        for (int i = word.length(); i >= 0; i--) {
+            if (!path[i].offer(rank)) {
+                break;
+            }
+        }
+    }
+
+    private void delete(String word, long rank) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(word.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node node = path[word.length()];
+        int at = Arrays.binarySearch(node.postings, rank);
+        if (at < 0) {
+            return;
+        }
+        long[] postings = node.postings.length == 1 ? NO_RANKS : new long[node.postings.length - 1];
+        System.arraycopy(node.postings, 0, postings, 0, at);
+        System.arraycopy(node.postings, at + 1, postings, at, postings.length - at);
+        node.postings = postings;
+
+        for (int i = word.length(); i >= 0; i--) {
+            if (i > 0 && path[i].isEmpty()) {
+                path[i - 1].removeChild(word.charAt(i - 1));
+            } else if (!path[i].updateTop()) {
+                break;
+            }
+        }
+    }
+
+    // every product under the node, best rank first; only for limits past the kept top-k
+    private static long[] subtree(Node node) {
+        List<long[]> postings = new ArrayList<>();
+        collect(node, postings);
+        long[] ranks = postings.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return distinctProducts(ranks, ranks.length);
+    }
+
+    private static void collect(Node node, List<long[]> postings) {
+        postings.add(node.postings);
+        for (Node child : node.children) {
+            collect(child, postings);
+        }
+    }
+
+    private List<String> suggestions(long[] ranks, int limit) {
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (int i = 0; i < ranks.length && suggestions.size() < limit; i++) {
+            suggestions.add(names.get(ranks[i] & ID_MASK));
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    // sorted ranks -> the best rank of each product, at most max of them
+    private static long[] distinctProducts(long[] sorted, int max) {
+        long[] best = new long[Math.min(sorted.length, max)];
+        Set<Long> seen = new HashSet<>();
+        int count = 0;
+        for (int i = 0; i < sorted.length && count < max; i++) {
+            if (seen.add(sorted[i] & ID_MASK)) {
+                best[count++] = sorted[i];
+            }
+        }
+        return count == 0 ? NO_RANKS : count == best.length ? best : Arrays.copyOf(best, count);
+    }
+
+    private static int indexOfProduct(long[] ranks, long id) {
+        for (int i = 0; i < ranks.length; i++) {
+            if ((ranks[i] & ID_MASK) == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Node {
+
+        // sorted, parallel to children
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        // ranks of the products with the word ending here, sorted
+        private long[] postings = NO_RANKS;
+        // best TOP_K ranks of the subtree, one per product, sorted
+        private long[] top = NO_RANKS;
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrAdd(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = label;
+            newChildren[at] = new Node();
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            if (labels.length == 1) {
+                labels = NO_LABELS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, newLabels.length - at);
+            System.arraycopy(children, at + 1, newChildren, at, newChildren.length - at);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return postings.length == 0 && children.length == 0;
+        }
+
+        // merges a new rank of the subtree into top; false when top is unchanged
+        boolean offer(long rank) {
+            int existing = indexOfProduct(top, rank & ID_MASK);
+            if (existing >= 0 ? top[existing] <= rank : top.length == TOP_K && top[TOP_K - 1] < rank) {
+                return false;
+            }
+            long[] kept = top;
+            if (existing >= 0) {
+                kept = new long[top.length - 1];
+                System.arraycopy(top, 0, kept, 0, existing);
+                System.arraycopy(top, existing + 1, kept, existing, kept.length - existing);
+            }
+            int at = -Arrays.binarySearch(kept, rank) - 1;
+            long[] merged = new long[Math.min(kept.length + 1, TOP_K)];
+            System.arraycopy(kept, 0, merged, 0, at);
+            merged[at] = rank;
+            System.arraycopy(kept, at, merged, at + 1, merged.length - at - 1);
+            top = merged;
+            return true;
+        }
+
+        // the best TOP_K of the subtree are among the own best TOP_K and each child's top;
+        // false when top is unchanged
+        boolean updateTop() {
+            int own = Math.min(postings.length, TOP_K);
+            int size = own;
+            for (Node child : children) {
+                size += child.top.length;
+            }
+            long[] candidates = new long[size];
+            System.arraycopy(postings, 0, candidates, 0, own);
+            int at = own;
+            for (Node child : children) {
+                System.arraycopy(child.top, 0, candidates, at, child.top.length);
+                at += child.top.length;
+            }
+            Arrays.sort(candidates);
+            long[] updated = distinctProducts(candidates, TOP_K);
+            if (Arrays.equals(updated, top)) {
+                return false;
+            }
+            top = updated;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.samuel.loja.services.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory inverted index over product name and description, ranked with BM25. Built once when
+ * the application is ready and kept up to date from {@link ProductChangedEvent}s after commit; the
+ * changes committed before the build finishes are replayed after it.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Field name = new Field();
+    private final Field description = new Field();
+    private final ProductChangeBuffer changes = new ProductChangeBuffer(this::apply);
+
+    // before ProductImportRunner, so the imported products are applied as they commit
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void build() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // one pass over scalar rows: no OFFSET pages, no count queries, no managed entities
+        int replayed = changes.build(() -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = repository.streamSearchDocuments()) {
+                rows.forEach(row -> index(
+                    new ProductListDto((Long) row[0], (String) row[1], (BigDecimal) row[2], (String) row[3]),
+                    (String) row[4]));
+            }
+        }));
+        log.info("Product search index built with {} products in {} ms, {} changes replayed",
+            size(), System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changes.accept(event);
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.id());
+        } else {
+            ProductDto product = event.product();
+            index(new ProductListDto(product.getId(), product.getName(), product.getPrice(), product.getImgUrl()),
+                product.getDescription());
+        }
+    }
+
+    public List<ProductListDto> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                name.score(term, NAME_BOOST, documents.size(), scores);
+                description.score(term, 1.0, documents.size(), scores);
+            }
+            return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(e -> documents.get(e.getKey()).product())
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void index(ProductListDto product, String descriptionText) {
+        Map<String, Integer> nameTerms = termFrequencies(product.getName());
+        Map<String, Integer> descriptionTerms = termFrequencies(descriptionText);
+
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.get(product.getId());
+            if (previous != null) {
+                unindex(product.getId(), previous);
+            }
+            Document document = new Document(product, nameTerms, descriptionTerms);
+            documents.put(product.getId(), document);
+            name.add(product.getId(), nameTerms);
+            description.add(product.getId(), descriptionTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long id, Document document) {
+        name.remove(id, document.nameTerms());
+        description.remove(id, document.descriptionTerms());
+    }
+
+    private static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : TextNormalizer.tokenize(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private record Document(ProductListDto product, Map<String, Integer> nameTerms, Map<String, Integer> descriptionTerms) {
+    }
+
+    /**
+     * Postings of one field: term -> (product id -> term frequency), plus the document lengths
+     * needed for the BM25 length normalization.
+     */
+    private static class Field {
+
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, Integer> lengths = new HashMap<>();
+        private long totalLength;
+
+        void add(Long id, Map<String, Integer> terms) {
+            int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+            lengths.put(id, length);
+            totalLength += length;
+            terms.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+        }
+
+        void remove(Long id, Map<String, Integer> terms) {
+            Integer length = lengths.remove(id);
+            if (length != null) {
+                totalLength -= length;
+            }
+            for (String term : terms.keySet()) {
+                Map<Long, Integer> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(id);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        void score(String term, double boost, int totalDocuments, Map<Long, Double> scores) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs == null || lengths.isEmpty()) {
+                return;
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / lengths.size());
+            double idf = Math.log(1 + (totalDocuments - docs.size() + 0.5) / (docs.size() + 0.5));
+            docs.forEach((id, tf) -> {
+                double norm = K1 * (1 - B + B * lengths.get(id) / averageLength);
+                scores.merge(id, boost * idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            });
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.samuel.loja.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordEncoderConfigTest {
+
+    private static final String PASSWORD = "123456";
+
+    @Test
+    public void unprefixedHashShouldMatchAndBeRehashedWithTheCurrentCost() {
+        PasswordEncoder encoder = PasswordEncoderConfig.passwordEncoder(5, false);
+        String legacy = new BCryptPasswordEncoder(5).encode(PASSWORD);
+
+        assertTrue(encoder.matches(PASSWORD, legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+
+        String rehashed = encoder.encode(PASSWORD);
+        assertTrue(rehashed.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches(PASSWORD, rehashed));
+        assertFalse(encoder.upgradeEncoding(rehashed));
+    }
+
+    @Test
+    public void weakerHashShouldBeRehashed() {
+        PasswordEncoder encoder = PasswordEncoderConfig.passwordEncoder(5, false);
+
+        assertTrue(encoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD)));
+    }
+
+    @Test
+    public void strongerHashShouldBeRehashedOnlyWhenOptedIn() {
+        String stronger = "{bcrypt}" + new BCryptPasswordEncoder(6).encode(PASSWORD);
+
+        assertFalse(PasswordEncoderConfig.passwordEncoder(5, false).upgradeEncoding(stronger));
+        assertTrue(PasswordEncoderConfig.passwordEncoder(5, true).upgradeEncoding(stronger));
+        assertTrue(PasswordEncoderConfig.passwordEncoder(5, true).matches(PASSWORD, stronger));
+    }
+
+    @Test
+    public void calibrateShouldStayWithinBounds() {
+        assertEquals(PasswordEncoderConfig.MINIMUM_STRENGTH, PasswordEncoderConfig.calibrate(Duration.ofMillis(1)));
+        assertEquals(PasswordEncoderConfig.MAXIMUM_STRENGTH, PasswordEncoderConfig.calibrate(Duration.ofDays(1)));
+    }
+}
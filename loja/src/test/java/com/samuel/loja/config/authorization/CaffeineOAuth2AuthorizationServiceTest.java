@@ -0,0 +1,118 @@
+package com.samuel.loja.config.authorization;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+public class CaffeineOAuth2AuthorizationServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RegisteredClient client = RegisteredClient.withId("client")
+        .clientId("client")
+        .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+        .authorizationGrantType(new AuthorizationGrantType("password"))
+        .build();
+
+    private CaffeineOAuth2AuthorizationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CaffeineOAuth2AuthorizationService(2, Duration.ofMinutes(5), nanos::get);
+    }
+
+    @Test
+    public void findByTokenShouldReturnAuthorizationWhenTokenTypeMatches() {
+        OAuth2Authorization authorization = authorization("a", "token-a", Duration.ofHours(1));
+        service.save(authorization);
+
+        Assertions.assertSame(authorization, service.findByToken("token-a", OAuth2TokenType.ACCESS_TOKEN));
+        Assertions.assertSame(authorization, service.findByToken("token-a", null));
+        Assertions.assertNull(service.findByToken("token-a", OAuth2TokenType.REFRESH_TOKEN));
+        Assertions.assertNull(service.findByToken("unknown", null));
+    }
+
+    @Test
+    public void authorizationShouldExpireWithItsAccessToken() {
+        service.save(authorization("a", "token-a", Duration.ofHours(1)));
+
+        advance(Duration.ofMinutes(59));
+        Assertions.assertNotNull(service.findById("a"));
+
+        advance(Duration.ofMinutes(2));
+        Assertions.assertNull(service.findById("a"));
+        Assertions.assertNull(service.findByToken("token-a", null));
+    }
+
+    @Test
+    public void removeShouldDropAuthorizationAndItsTokens() {
+        OAuth2Authorization authorization = authorization("a", "token-a", Duration.ofHours(1));
+        service.save(authorization);
+
+        service.remove(authorization);
+
+        Assertions.assertNull(service.findById("a"));
+        Assertions.assertNull(service.findByToken("token-a", null));
+    }
+
+    @Test
+    public void saveShouldReplaceTheTokensOfAnUpdatedAuthorization() {
+        service.save(authorization("a", "old", Duration.ofHours(1)));
+        service.save(authorization("a", "new", Duration.ofHours(1)));
+
+        Assertions.assertNull(service.findByToken("old", null));
+        Assertions.assertEquals("a", service.findByToken("new", null).getId());
+    }
+
+    @Test
+    public void storeShouldNotGrowBeyondMaximumSize() {
+        for (int i = 0; i < 10; i++) {
+            service.save(authorization("id" + i, "token" + i, Duration.ofHours(1)));
+        }
+        service.getCache().cleanUp();
+
+        Assertions.assertEquals(2, service.getCache().estimatedSize());
+        Assertions.assertEquals(8, service.getCache().stats().evictionCount());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+
+    @Test
+    public void removeByPrincipalNameShouldDropOnlyThatPrincipalsAuthorizations() {
+        service.save(authorization("a", "token-a", Duration.ofHours(1)));
+        service.save(OAuth2Authorization.from(authorization("b", "token-b", Duration.ofHours(1)))
+            .principalName("alex@gmail.com")
+            .build());
+
+        Assertions.assertEquals(1, service.removeByPrincipalName("maria@gmail.com"));
+
+        Assertions.assertNull(service.findById("a"));
+        Assertions.assertNull(service.findByToken("token-a", null));
+        Assertions.assertNotNull(service.findByToken("token-b", null));
+    }
+
+    private OAuth2Authorization authorization(String id, String tokenValue, Duration timeToLive) {
+        Instant issuedAt = Instant.now();
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue,
+            issuedAt, issuedAt.plus(timeToLive));
+
+        return OAuth2Authorization.withRegisteredClient(client)
+            .id(id)
+            .principalName("maria@gmail.com")
+            .authorizationGrantType(new AuthorizationGrantType("password"))
+            .accessToken(accessToken)
+            .build();
+    }
+}
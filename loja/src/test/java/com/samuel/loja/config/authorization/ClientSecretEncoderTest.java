@@ -0,0 +1,29 @@
+package com.samuel.loja.config.authorization;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ClientSecretEncoderTest {
+
+    private final ClientSecretEncoder encoder = new ClientSecretEncoder();
+
+    @Test
+    public void encodeShouldStoreASaltedBcryptHash() {
+        String first = encoder.encode("myclientsecret");
+        String second = encoder.encode("myclientsecret");
+
+        Assertions.assertTrue(first.startsWith("{bcrypt}"));
+        Assertions.assertNotEquals(first, second);
+    }
+
+    @Test
+    public void matchesShouldAcceptOnlyTheSecretBeforeAndAfterItIsRemembered() {
+        String encoded = encoder.encode("myclientsecret");
+
+        Assertions.assertFalse(encoder.matches("wrong", encoded));
+        Assertions.assertTrue(encoder.matches("myclientsecret", encoded));
+        Assertions.assertTrue(encoder.matches("myclientsecret", encoded));
+        Assertions.assertFalse(encoder.matches("wrong", encoded));
+        Assertions.assertFalse(encoder.matches(null, encoded));
+    }
+}
@@ -0,0 +1,140 @@
+package com.samuel.loja.config.authorization;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.json.JacksonJsonParser;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.samuel.loja.tests.TokenUtil;
+
+import javax.sql.DataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "security.authorization.store=jdbc")
+@AutoConfigureMockMvc
+public class JdbcOAuth2AuthorizationServiceIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TokenUtil tokenUtil;
+    @Autowired
+    private RevocableOAuth2AuthorizationService authorizationService;
+    @Autowired
+    private JdbcOAuth2AuthorizationCleaner cleaner;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${security.client-id}")
+    private String clientId;
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    // the table is created at startup by OAuth2AuthorizationSchemaInitializer
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM oauth2_authorization");
+    }
+
+    @Test
+    public void loginRefreshAndCleanupShouldWorkAgainstTheTable() throws Exception {
+        Map<String, Object> login = tokens(mockMvc.perform(post("/oauth2/token")
+                .param("grant_type", "password")
+                .param("username", "maria@gmail.com")
+                .param("password", "123456")
+                .with(httpBasic(clientId, clientSecret)))
+            .andExpect(status().isOk()));
+
+        Map<String, Object> refreshed = tokens(mockMvc.perform(post("/oauth2/token")
+                .param("grant_type", "refresh_token")
+                .param("refresh_token", login.get("refresh_token").toString())
+                .with(httpBasic(clientId, clientSecret)))
+            .andExpect(status().isOk()));
+
+        mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + refreshed.get("access_token")))
+            .andExpect(status().isOk());
+        Assertions.assertNotNull(authorizationService.findByToken(refreshed.get("refresh_token").toString(),
+            OAuth2TokenType.REFRESH_TOKEN));
+        Assertions.assertNull(authorizationService.findByToken(login.get("refresh_token").toString(),
+            OAuth2TokenType.REFRESH_TOKEN));
+
+        jdbcTemplate.update("UPDATE oauth2_authorization SET access_token_expires_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP), "
+            + "refresh_token_expires_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP)");
+        Assertions.assertEquals(1, cleaner.purgeExpired());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Long.class));
+    }
+
+    @Test
+    public void schemaInitializerShouldCreateTheMissingTableOrFailWhenNotAllowed() {
+        jdbcTemplate.execute("DROP TABLE oauth2_authorization");
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+            () -> new OAuth2AuthorizationSchemaInitializer(dataSource, jdbcTemplate, false).afterPropertiesSet());
+        Assertions.assertTrue(e.getMessage().contains("oauth2_authorization"));
+
+        new OAuth2AuthorizationSchemaInitializer(dataSource, jdbcTemplate, true).afterPropertiesSet();
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Long.class));
+        // a second run finds the table and leaves it alone
+        new OAuth2AuthorizationSchemaInitializer(dataSource, jdbcTemplate, true).afterPropertiesSet();
+    }
+
+    @Test
+    public void passwordGrantShouldBeStoredAndFoundByToken() throws Exception {
+        String accessToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        OAuth2Authorization authorization = authorizationService.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN);
+
+        Assertions.assertNotNull(authorization);
+        Assertions.assertEquals("maria@gmail.com", authorization.getPrincipalName());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Long.class));
+    }
+
+    @Test
+    public void removeByPrincipalNameShouldDeleteOnlyThatPrincipalsRows() throws Exception {
+        tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+
+        Assertions.assertEquals(1, authorizationService.removeByPrincipalName("alex@gmail.com"));
+
+        Assertions.assertEquals(List.of("maria@gmail.com"),
+            jdbcTemplate.queryForList("SELECT principal_name FROM oauth2_authorization", String.class));
+    }
+
+    @Test
+    public void purgeExpiredShouldDeleteOnlyExpiredAuthorizations() throws Exception {
+        tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+        jdbcTemplate.update("UPDATE oauth2_authorization SET access_token_expires_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP)");
+        // an expired access token alone keeps the authorization, its refresh token still works
+        Assertions.assertEquals(0, cleaner.purgeExpired());
+        jdbcTemplate.update("UPDATE oauth2_authorization SET refresh_token_expires_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP) "
+            + "WHERE principal_name = 'alex@gmail.com'");
+
+        int deleted = cleaner.purgeExpired();
+
+        Assertions.assertEquals(1, deleted);
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Long.class));
+    }
+
+    private static Map<String, Object> tokens(ResultActions result) throws Exception {
+        return new JacksonJsonParser().parseMap(result.andReturn().getResponse().getContentAsString());
+    }
+}
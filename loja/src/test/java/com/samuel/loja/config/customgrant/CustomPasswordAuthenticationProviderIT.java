@@ -0,0 +1,115 @@
+package com.samuel.loja.config.customgrant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Issues many password grants at once over HTTP and checks that every token carries the claims
+ * of the user who asked for it. The number of grants can be changed with -Dloja.loadtest.grants.
+ * Every grant comes from the same address and must be admitted, so the login limits are lifted.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "security.login.throttle.per-address=0",
+    "security.login.hashing.queue-capacity=10000"})
+public class CustomPasswordAuthenticationProviderIT {
+
+    private static final Map<String, Set<String>> USERS = Map.of(
+        "alex@gmail.com", Set.of("ROLE_OPERATOR"),
+        "maria@gmail.com", Set.of("ROLE_OPERATOR", "ROLE_ADMIN"));
+    private static final String PASSWORD = "123456";
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @Value("${loja.loadtest.grants:2000}")
+    private int grants;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private record Grant(String username, Map<String, Object> claims) {
+    }
+
+    @Test
+    void concurrentPasswordGrantsShouldIssueTokensWithTheRequestingUsersClaims() throws Exception {
+        int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> usernames = List.copyOf(USERS.keySet());
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Grant>> futures = new ArrayList<>();
+        for (int i = 0; i < grants; i++) {
+            String username = usernames.get(i % usernames.size());
+            Callable<Grant> grant = () -> {
+                start.await();
+                return new Grant(username, claims(requestToken(client, username)));
+            };
+            futures.add(executor.submit(grant));
+        }
+
+        start.countDown();
+        try {
+            for (Future<Grant> future : futures) {
+                Grant grant = future.get();
+                assertEquals(grant.username(), grant.claims().get("username"));
+                assertEquals(USERS.get(grant.username()), new HashSet<>((List<?>) grant.claims().get("authorities")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String requestToken(HttpClient client, String username) throws Exception {
+        String form = "grant_type=password"
+            + "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+            + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        String basic = Base64.getEncoder().encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/oauth2/token"))
+            .header("Authorization", "Basic " + basic)
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("access_token").asText();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> claims(String jwt) throws Exception {
+        byte[] payload = Base64.getUrlDecoder().decode(jwt.split("\\.")[1]);
+        return objectMapper.readValue(payload, Map.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.samuel.loja.config.customgrant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "security.login.throttle.failures-per-username=2",
+    "security.login.throttle.per-address=5"})
+@AutoConfigureMockMvc
+public class LoginThrottleIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @Test
+    public void usernameShouldBeThrottledAfterFailedLoginsEvenWithTheRightPassword() throws Exception {
+        passwordGrant("alex@gmail.com", "wrong", "10.0.0.1").andExpect(status().isBadRequest());
+        passwordGrant("alex@gmail.com", "wrong", "10.0.0.2").andExpect(status().isBadRequest());
+
+        passwordGrant("alex@gmail.com", "123456", "10.0.0.3")
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"))
+            .andExpect(jsonPath("$.error").value(LoginRejectedException.TOO_MANY_REQUESTS));
+    }
+
+    @Test
+    public void addressShouldBeThrottledWhileTheCatalogKeepsAnswering() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            passwordGrant("maria@gmail.com", "123456", "10.0.1.1").andExpect(status().isOk());
+        }
+
+        passwordGrant("maria@gmail.com", "123456", "10.0.1.1").andExpect(status().isTooManyRequests());
+        passwordGrant("maria@gmail.com", "123456", "10.0.1.2").andExpect(status().isOk());
+        mockMvc.perform(get("/products").with(request -> {
+            request.setRemoteAddr("10.0.1.1");
+            return request;
+        })).andExpect(status().isOk());
+    }
+
+    private ResultActions passwordGrant(String username, String password, String remoteAddress) throws Exception {
+        return mockMvc.perform(post("/oauth2/token")
+            .param("grant_type", "password")
+            .param("username", username)
+            .param("password", password)
+            .with(httpBasic(clientId, clientSecret))
+            .with(request -> {
+                request.setRemoteAddr(remoteAddress);
+                return request;
+            }));
+    }
+}
@@ -0,0 +1,89 @@
+package com.samuel.loja.config.customgrant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingExecutorTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    void executeShouldReturnTheTaskResultAndRecordItsLatency() {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), registry);
+
+        assertTrue(executor.execute(() -> true));
+        assertEquals(1, registry.get("executor").tag("name", "password.hashing").timer().count());
+    }
+
+    @Test
+    void executeShouldRejectWith503WhenPoolAndQueueAreFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), registry);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> executor.execute(() -> {
+            running.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> true));
+        while (registry.get("executor.queued").tag("name", "password.hashing").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        LoginRejectedException e = assertThrows(LoginRejectedException.class, () -> executor.execute(() -> true));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertEquals(1, registry.get("security.login.rejected").tag("reason", "saturated").counter().count());
+        release.countDown();
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submitShouldRunTheTaskWithoutWaitingAndRefuseItWhenThePoolIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 0, Duration.ofSeconds(5), registry);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(executor.submit(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertFalse(executor.submit(ran::countDown));
+
+        release.countDown();
+        while (!executor.submit(ran::countDown)) {
+            Thread.sleep(10);
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeShouldRejectWith503WhenTheCheckTakesLongerThanTheTimeout() {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofMillis(50), registry);
+
+        LoginRejectedException e = assertThrows(LoginRejectedException.class,
+            () -> executor.execute(() -> release.await(5, TimeUnit.SECONDS)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertEquals(1, registry.get("security.login.rejected").tag("reason", "timeout").counter().count());
+    }
+}
@@ -0,0 +1,94 @@
+package com.samuel.loja.config.customgrant;
+
+import com.samuel.loja.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional: the rehash is committed in the background after the login
+@SpringBootTest(properties = "security.password.bcrypt.strength=5")
+@AutoConfigureMockMvc
+public class PasswordUpgradeIT {
+
+    // the seed hash of import.sql: cost 10, stored without the {bcrypt} prefix
+    private static final String LEGACY_HASH = "$2a$10$TntTlUn1EW4Je8IV5jVw8.9wdpPF/6hLv1BbLT5AkSvIlpkkeh5Oi";
+    private static final String USERNAME = "alex@gmail.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @BeforeEach
+    @AfterEach
+    void resetPassword() {
+        jdbcTemplate.update("UPDATE tb_user SET password = ? WHERE email = ?", LEGACY_HASH, USERNAME);
+        cacheManager.getCache(CacheConfig.USER_DETAILS).evict(USERNAME);
+    }
+
+    @Test
+    public void loginShouldRehashLegacyPasswordAndKeepAcceptingIt() throws Exception {
+        passwordGrant("123456").andExpect(status().isOk());
+
+        String stored = awaitRehash();
+        assertTrue(stored.startsWith("{bcrypt}$2a$05$"), stored);
+        passwordGrant("123456").andExpect(status().isOk());
+        Thread.sleep(200);
+        assertEquals(stored, storedPassword());
+    }
+
+    @Test
+    public void failedLoginShouldNotRehash() throws Exception {
+        passwordGrant("wrong").andExpect(status().isBadRequest());
+
+        Thread.sleep(200);
+        assertEquals(LEGACY_HASH, storedPassword());
+    }
+
+    private String awaitRehash() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String stored = storedPassword();
+        while (LEGACY_HASH.equals(stored) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            stored = storedPassword();
+        }
+        return stored;
+    }
+
+    private String storedPassword() {
+        return jdbcTemplate.queryForObject("SELECT password FROM tb_user WHERE email = ?", String.class, USERNAME);
+    }
+
+    private ResultActions passwordGrant(String password) throws Exception {
+        return mockMvc.perform(post("/oauth2/token")
+            .param("grant_type", "password")
+            .param("username", USERNAME)
+            .param("password", password)
+            .with(httpBasic(clientId, clientSecret)));
+    }
+}
@@ -0,0 +1,197 @@
+package com.samuel.loja.config.customgrant;
+
+import com.samuel.loja.config.CacheConfig;
+import com.samuel.loja.dto.RoleDTO;
+import com.samuel.loja.dto.UserDto;
+import com.samuel.loja.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.json.JacksonJsonParser;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RefreshTokenGrantIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RegisteredClientRepository registeredClientRepository;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @Test
+    public void refreshShouldIssueNewTokensWithoutCheckingThePassword() throws Exception {
+        Map<String, Object> login = tokens(passwordGrant("maria@gmail.com", "123456").andExpect(status().isOk()));
+        assertNotNull(login.get("refresh_token"));
+        Mockito.clearInvocations(passwordEncoder);
+
+        Map<String, Object> refreshed = tokens(refreshGrant(login.get("refresh_token")).andExpect(status().isOk()));
+
+        Mockito.verifyNoInteractions(passwordEncoder);
+        assertNotEquals(login.get("refresh_token"), refreshed.get("refresh_token"));
+        Jwt jwt = jwtDecoder.decode(refreshed.get("access_token").toString());
+        assertEquals("maria@gmail.com", jwt.getClaimAsString("username"));
+        assertEquals(List.of("ROLE_OPERATOR", "ROLE_ADMIN"),
+            jwt.getClaimAsStringList("authorities").stream().sorted((a, b) -> b.compareTo(a)).toList());
+    }
+
+    @Test
+    public void usedRefreshTokenShouldBeRejected() throws Exception {
+        Map<String, Object> login = tokens(passwordGrant("alex@gmail.com", "123456").andExpect(status().isOk()));
+        refreshGrant(login.get("refresh_token")).andExpect(status().isOk());
+
+        refreshGrant(login.get("refresh_token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("invalid_grant"));
+    }
+
+    @Test
+    public void revokedRefreshTokenShouldBeRejected() throws Exception {
+        Map<String, Object> login = tokens(passwordGrant("alex@gmail.com", "123456").andExpect(status().isOk()));
+
+        mockMvc.perform(post("/oauth2/revoke")
+                .param("token", login.get("refresh_token").toString())
+                .param("token_type_hint", "refresh_token")
+                .with(httpBasic(clientId, clientSecret)))
+            .andExpect(status().isOk());
+
+        refreshGrant(login.get("refresh_token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("invalid_grant"));
+    }
+
+    @Test
+    public void refreshShouldFailAfterTheUserIsDemoted() throws Exception {
+        Map<String, Object> login = tokens(passwordGrant("maria@gmail.com", "123456").andExpect(status().isOk()));
+
+        try {
+            userService.update(2L, maria(new RoleDTO(1L, "ROLE_OPERATOR")));
+
+            refreshGrant(login.get("refresh_token"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_grant"));
+        } finally {
+            userService.update(2L, maria(new RoleDTO(1L, "ROLE_OPERATOR"), new RoleDTO(2L, "ROLE_ADMIN")));
+        }
+    }
+
+    @Test
+    public void refreshShouldFailAfterTheUserIsDeleted() throws Exception {
+        Long id = insertUser("bob@gmail.com");
+        Map<String, Object> login = tokens(passwordGrant("bob@gmail.com", "123456").andExpect(status().isOk()));
+
+        userService.delete(id);
+
+        refreshGrant(login.get("refresh_token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("invalid_grant"));
+    }
+
+    // the authorization survives a change made straight in the database, the refresh reloads the user
+    @Test
+    public void refreshShouldReloadTheUserItWasIssuedTo() throws Exception {
+        Long id = insertUser("carol@gmail.com");
+        Map<String, Object> login = tokens(passwordGrant("carol@gmail.com", "123456").andExpect(status().isOk()));
+
+        jdbcTemplate.update("INSERT INTO tb_user_role (user_id, role_id) VALUES (?, 2)", id);
+        cacheManager.getCache(CacheConfig.USER_DETAILS).evict("carol@gmail.com");
+        Map<String, Object> refreshed = tokens(refreshGrant(login.get("refresh_token")).andExpect(status().isOk()));
+
+        Jwt jwt = jwtDecoder.decode(refreshed.get("access_token").toString());
+        assertEquals(List.of("ROLE_OPERATOR", "ROLE_ADMIN"),
+            jwt.getClaimAsStringList("authorities").stream().sorted((a, b) -> b.compareTo(a)).toList());
+
+        jdbcTemplate.update("DELETE FROM tb_user_role WHERE user_id = ?", id);
+        jdbcTemplate.update("DELETE FROM tb_user WHERE id = ?", id);
+        cacheManager.getCache(CacheConfig.USER_DETAILS).evict("carol@gmail.com");
+
+        refreshGrant(refreshed.get("refresh_token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("invalid_grant"));
+    }
+
+    @Test
+    public void clientSecretShouldBeStoredAsBcrypt() {
+        String encoded = registeredClientRepository.findByClientId(clientId).getClientSecret();
+
+        assertTrue(encoded.startsWith("{bcrypt}"));
+        assertFalse(encoded.contains(clientSecret));
+    }
+
+    private Long insertUser(String email) {
+        // same hash as the seeded users, password 123456
+        jdbcTemplate.update("INSERT INTO tb_user (first_name, last_name, email, password) VALUES ('Test', 'User', ?, "
+            + "'$2a$10$TntTlUn1EW4Je8IV5jVw8.9wdpPF/6hLv1BbLT5AkSvIlpkkeh5Oi')", email);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM tb_user WHERE email = ?", Long.class, email);
+        jdbcTemplate.update("INSERT INTO tb_user_role (user_id, role_id) VALUES (?, 1)", id);
+        return id;
+    }
+
+    private static UserDto maria(RoleDTO... roles) {
+        return new UserDto(2L, "Maria", "Green", "maria@gmail.com", Set.of(roles));
+    }
+
+    private ResultActions passwordGrant(String username, String password) throws Exception {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("grant_type", "password");
+        params.add("username", username);
+        params.add("password", password);
+        return mockMvc.perform(post("/oauth2/token").params(params).with(httpBasic(clientId, clientSecret)));
+    }
+
+    private ResultActions refreshGrant(Object refreshToken) throws Exception {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("grant_type", "refresh_token");
+        params.add("refresh_token", refreshToken.toString());
+        return mockMvc.perform(post("/oauth2/token").params(params).with(httpBasic(clientId, clientSecret)));
+    }
+
+    private static Map<String, Object> tokens(ResultActions result) throws Exception {
+        return new JacksonJsonParser().parseMap(result.andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,131 @@
+package com.samuel.loja.config.keys;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+public class CachingJwtDecoderTest {
+
+    private static final Instant START = Instant.parse("2023-06-01T12:00:00Z");
+    private static final Duration SKEW = Duration.ofSeconds(60);
+
+    // drives both the cache ticker and the clock the claims are compared with
+    private final AtomicLong nanos = new AtomicLong();
+    private JwtDecoder delegate;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(JwtDecoder.class);
+        decoder = new CachingJwtDecoder(delegate, 100, SKEW, new TickerClock(), nanos::get);
+    }
+
+    @Test
+    public void decodeShouldVerifyTokenOnceWhileItIsValid() {
+        Mockito.when(delegate.decode("token")).thenReturn(jwt(null, START.plus(Duration.ofHours(1))));
+
+        Jwt first = decoder.decode("token");
+        Jwt second = decoder.decode("token");
+
+        Assertions.assertSame(first, second);
+        Mockito.verify(delegate, Mockito.times(1)).decode("token");
+        Assertions.assertEquals(1, decoder.getCache().stats().hitCount());
+    }
+
+    @Test
+    public void decodeShouldVerifyAgainOnceTheTokenIsWithinTheClockSkewOfExp() {
+        Mockito.when(delegate.decode("token")).thenReturn(jwt(null, START.plus(Duration.ofHours(1))));
+
+        decoder.decode("token");
+        advance(Duration.ofHours(1).minus(SKEW).minusNanos(1));
+        decoder.decode("token");
+        Mockito.verify(delegate, Mockito.times(1)).decode("token");
+
+        advance(Duration.ofNanos(1));
+        decoder.decode("token");
+
+        Mockito.verify(delegate, Mockito.times(2)).decode("token");
+    }
+
+    @Test
+    public void decodeShouldNotCacheTokensAcceptedWithinTheClockSkew() {
+        Mockito.when(delegate.decode("token")).thenReturn(jwt(null, START.plusSeconds(30)));
+
+        decoder.decode("token");
+        decoder.decode("token");
+
+        Mockito.verify(delegate, Mockito.times(2)).decode("token");
+        Assertions.assertEquals(0, decoder.getCache().estimatedSize());
+    }
+
+    @Test
+    public void decodeShouldNotCacheTokensBeforeTheirNotBefore() {
+        Mockito.when(delegate.decode("token")).thenReturn(jwt(START.plusSeconds(30), START.plus(Duration.ofHours(1))));
+
+        decoder.decode("token");
+        decoder.decode("token");
+        Mockito.verify(delegate, Mockito.times(2)).decode("token");
+
+        advance(Duration.ofSeconds(30));
+        decoder.decode("token");
+        decoder.decode("token");
+
+        Mockito.verify(delegate, Mockito.times(3)).decode("token");
+    }
+
+    @Test
+    public void decodeShouldNotCacheRejectedTokens() {
+        Mockito.when(delegate.decode("bad")).thenThrow(new BadJwtException("invalid"));
+
+        Assertions.assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+        Assertions.assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+        Mockito.verify(delegate, Mockito.times(2)).decode("bad");
+        Assertions.assertEquals(0, decoder.getCache().estimatedSize());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static Jwt jwt(Instant notBefore, Instant expiresAt) {
+        Jwt.Builder builder = Jwt.withTokenValue("token")
+            .header("alg", "RS256")
+            .subject("maria@gmail.com")
+            .issuedAt(START)
+            .expiresAt(expiresAt);
+        if (notBefore != null) {
+            builder.notBefore(notBefore);
+        }
+        return builder.build();
+    }
+
+    private class TickerClock extends Clock {
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return START.plusNanos(nanos.get());
+        }
+    }
+}
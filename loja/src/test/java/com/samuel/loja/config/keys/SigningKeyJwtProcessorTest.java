@@ -0,0 +1,71 @@
+package com.samuel.loja.config.keys;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+public class SigningKeyJwtProcessorTest {
+
+    @ParameterizedTest
+    @EnumSource(SigningAlgorithm.class)
+    public void decodeShouldAcceptTokenSignedByEncoder(SigningAlgorithm algorithm) {
+        SigningKeyManager keyManager = keyManager(algorithm);
+
+        Jwt jwt = decoder(keyManager).decode(encode(keyManager, algorithm));
+
+        Assertions.assertEquals("maria@gmail.com", jwt.getSubject());
+        Assertions.assertEquals(List.of("ROLE_ADMIN"), jwt.getClaimAsStringList("authorities"));
+        Assertions.assertEquals(algorithm.getName(), jwt.getHeaders().get("alg"));
+    }
+
+    @Test
+    public void decodeShouldRejectTokenOfAnotherKey() {
+        String token = encode(keyManager(SigningAlgorithm.ES256), SigningAlgorithm.ES256);
+
+        Assertions.assertThrows(BadJwtException.class, () -> decoder(keyManager(SigningAlgorithm.ES256)).decode(token));
+    }
+
+    @Test
+    public void decodeShouldRejectTamperedSignature() {
+        SigningKeyManager keyManager = keyManager(SigningAlgorithm.EdDSA);
+        String token = encode(keyManager, SigningAlgorithm.EdDSA);
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1)
+            + (signature.charAt(0) == 'A' ? 'B' : 'A') + signature.substring(1);
+
+        Assertions.assertThrows(BadJwtException.class, () -> decoder(keyManager).decode(tampered));
+    }
+
+    private static SigningKeyManager keyManager(SigningAlgorithm algorithm) {
+        return new SigningKeyManager(algorithm, null, Duration.ZERO, Duration.ZERO, Duration.ofDays(1), Clock.systemUTC());
+    }
+
+    private static NimbusJwtDecoder decoder(SigningKeyManager keyManager) {
+        return new NimbusJwtDecoder(new SigningKeyJwtProcessor(keyManager));
+    }
+
+    private static String encode(SigningKeyManager keyManager, SigningAlgorithm algorithm) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+            .subject("maria@gmail.com")
+            .issuedAt(now)
+            .expiresAt(now.plusSeconds(60))
+            .claim("authorities", List.of("ROLE_ADMIN"))
+            .build();
+        JwsHeader header = JwsHeader.with(algorithm).keyId(keyManager.getSigningKey().getKeyID()).build();
+
+        return new SigningKeyJwtEncoder(keyManager).encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+}
@@ -0,0 +1,51 @@
+package com.samuel.loja.controllers;
+
+import com.samuel.loja.tests.TokenUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwksControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Test
+    public void jwksShouldPublishPublicKeyOfIssuedTokensWithCacheHeaders() throws Exception {
+        String accessToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        String header = new String(Base64.getUrlDecoder().decode(accessToken.substring(0, accessToken.indexOf('.'))));
+        String keyId = header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(get("/.well-known/jwks.json"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+            .andExpect(jsonPath("$.keys[*].kid").value(hasItem(keyId)))
+            .andExpect(jsonPath("$.keys[0].d").doesNotExist());
+    }
+
+    @Test
+    public void jwksShouldReturnNotModifiedWhenETagMatches() throws Exception {
+        MvcResult result = mockMvc.perform(get("/.well-known/jwks.json")).andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+    }
+}
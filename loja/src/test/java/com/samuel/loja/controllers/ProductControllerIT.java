@@ -62,6 +62,40 @@ class ProductControllerIT {
         adminPassword = "123456";
     }
 
+    @Test
+    void findAllWithoutTotalShouldApplyTheFilter() throws Exception {
+        mockMvc.perform(get("/products?withTotal=false&categoryId=2&orderBy=id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.content[1].id").value(5L));
+    }
+
+    @Test
+    void findAllWithoutTotalShouldReturn422WhenApproximateTotalIsFiltered() throws Exception {
+        mockMvc.perform(get("/products?withTotal=false&approximateTotal=true&categoryId=2"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void findAllByCursorShouldApplyTheFilter() throws Exception {
+        mockMvc.perform(get("/products/scroll?categoryId=2&orderBy=price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.content[1].id").value(5L));
+    }
+
+    @Test
+    void findAllByCursorShouldReturn422WhenPageSizeIsOutOfRange() throws Exception {
+        mockMvc.perform(get("/products/scroll?linesPerPage=0"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(get("/products/scroll?linesPerPage=-1"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(get("/products/scroll?linesPerPage=" + Integer.MAX_VALUE))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void insertShouldReturn403WhenOperatorLogged() throws Exception {
         String jsonBody = objectMapper.writeValueAsString(productDto);
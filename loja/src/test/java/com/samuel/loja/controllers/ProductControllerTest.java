@@ -6,6 +6,7 @@ import com.samuel.loja.dto.ProductListDto;
 import com.samuel.loja.services.ProductService;
 import com.samuel.loja.services.exceptions.DataBaseException;
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
+import com.samuel.loja.services.imports.ProductCsvImporter;
 import com.samuel.loja.tests.Factory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -39,6 +41,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -55,6 +59,9 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductCsvImporter productCsvImporter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -86,7 +93,7 @@ public class ProductControllerTest {
         productListDto = Factory.createProductListDto();
         page = new PageImpl<>(List.of(productListDto));
 
-        when(productService.findAllPaged(any())).thenReturn(page);
+        when(productService.findAllPaged(any(), any())).thenReturn(page);
 
         when(productService.findById(existingId)).thenReturn(productDto);
         when(productService.findById(nonExistingID))
@@ -128,6 +135,17 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.name").exists());
     }
 
+    @Test
+    void findByIdShouldReturnNotModifiedWhenETagMatches() throws Exception {
+        mockMvc.perform(get("/products/{id}", existingId)
+                        .with(user(adminUsername).password(adminPassword))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + productDto.getEntityTag() + "\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + productDto.getEntityTag() + "\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     void findByIdShouldReturnNotFoundWhenIdDoesNoTExist() throws Exception {
         mockMvc.perform(get("/products/{id}", nonExistingID)
@@ -0,0 +1,76 @@
+package com.samuel.loja.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.loja.dto.RoleDTO;
+import com.samuel.loja.dto.UserDto;
+import com.samuel.loja.tests.TokenUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional: the profile cache is evicted after commit
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void getMeShouldReturnAuthenticatedUser() throws Exception {
+        String accessToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("maria@gmail.com"))
+                .andExpect(jsonPath("$.firstName").value("Maria"))
+                .andExpect(jsonPath("$.roles.length()").value(2));
+        }
+    }
+
+    @Test
+    public void getMeShouldReflectUpdateOfTheUser() throws Exception {
+        String operatorToken = tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+        String adminToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + operatorToken))
+            .andExpect(jsonPath("$.firstName").value("Alex"));
+
+        try {
+            updateAlex(adminToken, "Alexander");
+
+            mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + operatorToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Alexander"));
+        } finally {
+            updateAlex(adminToken, "Alex");
+        }
+    }
+
+    private void updateAlex(String adminToken, String firstName) throws Exception {
+        UserDto dto = new UserDto(1L, firstName, "Brown", "alex@gmail.com", Set.of(new RoleDTO(1L, "ROLE_OPERATOR")));
+
+        mockMvc.perform(put("/users/{id}", 1L)
+                .header("Authorization", "Bearer " + adminToken)
+                .content(objectMapper.writeValueAsString(dto))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    }
+}
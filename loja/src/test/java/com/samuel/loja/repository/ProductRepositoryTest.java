@@ -1,12 +1,21 @@
 package com.samuel.loja.repository;
 
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.ProductListDto;
 import com.samuel.loja.entities.Product;
 import com.samuel.loja.tests.Factory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +30,9 @@ class ProductRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() throws Exception {
         existingId = 1L;
@@ -60,6 +72,95 @@ class ProductRepositoryTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    void findNextPageShouldReturnProductsWithoutSortValueLastInBothDirections() {
+        Long first = saveWithoutPriceAndDate();
+        Long second = saveWithoutPriceAndDate();
+
+        for (ProductSortKey sortKey : List.of(ProductSortKey.PRICE, ProductSortKey.DATE)) {
+            for (Direction direction : Direction.values()) {
+                List<Long> ids = scroll(sortKey, direction);
+
+                assertEquals(countTotalProducts + 2, ids.size());
+                assertEquals(countTotalProducts + 2, new HashSet<>(ids).size());
+                // the 26th product ends a page: the next cursor points at a null value
+                assertEquals(direction.isAscending() ? List.of(first, second) : List.of(second, first),
+                    ids.subList(ids.size() - 2, ids.size()));
+            }
+        }
+    }
+
+    @Test
+    void productCategoryShouldHaveAnIndexStartingWithCategoryId() {
+        // the primary key is (product_id, category_id); the category filter needs the other order
+        List<String> columns = jdbcTemplate.queryForList(
+            "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS"
+                + " WHERE TABLE_NAME = 'TB_PRODUCT_CATEGORY' AND INDEX_NAME = 'IDX_PRODUCT_CATEGORY_CATEGORY_PRODUCT'"
+                + " ORDER BY ORDINAL_POSITION", String.class);
+
+        assertEquals(List.of("CATEGORY_ID", "PRODUCT_ID"), columns);
+    }
+
+    @Test
+    void productNameWordShouldHaveAnIndexStartingWithWord() {
+        List<String> columns = jdbcTemplate.queryForList(
+            "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS"
+                + " WHERE TABLE_NAME = 'TB_PRODUCT_NAME_WORD' AND INDEX_NAME = 'IDX_PRODUCT_NAME_WORD_WORD_PRODUCT'"
+                + " ORDER BY ORDINAL_POSITION", String.class);
+        assertEquals(List.of("WORD", "PRODUCT_ID"), columns);
+    }
+
+    @Test
+    void findFilteredShouldMatchProductsWhoseWordsStartWithEveryWordOfTheName() {
+        assertEquals(21, filteredIds("gam").size());
+        assertEquals(List.of(2L), filteredIds("TV sma"));
+        assertEquals(List.of(1L), filteredIds("lord-of"));
+        assertTrue(filteredIds("amer").isEmpty());
+        assertTrue(filteredIds("%").isEmpty());
+    }
+
+    @Test
+    void findFilteredShouldFollowTheNameOfSavedProducts() {
+        Product created = Factory.createProduct();
+        created.setId(null);
+        created.getCategories().clear();
+        Long createdId = productRepository.saveAndFlush(created).getId();
+        Product renamed = productRepository.findById(2L).orElseThrow();
+        renamed.setName("Smart OLED");
+        productRepository.saveAndFlush(renamed);
+
+        assertEquals(List.of(createdId), filteredIds("ps5 ult"));
+        assertEquals(List.of(2L), filteredIds("oled"));
+        assertTrue(filteredIds("tv").isEmpty());
+    }
+
+    private List<Long> filteredIds(String name) {
+        ProductFilter filter = new ProductFilter(name, null, null, null, null);
+        return productRepository.findFiltered(filter, PageRequest.of(0, 50, Sort.by("id"))).getContent().stream()
+            .map(ProductListDto::getId).toList();
+    }
+
+    private Long saveWithoutPriceAndDate() {
+        Product product = Factory.createProduct();
+        product.setId(null);
+        product.setPrice(null);
+        product.setDate(null);
+        product.getCategories().clear();
+        return productRepository.save(product).getId();
+    }
+
+    private List<Long> scroll(ProductSortKey sortKey, Direction direction) {
+        List<Long> ids = new ArrayList<>();
+        ProductCursor after = null;
+        CursorPageDto<ProductListDto> page;
+        do {
+            page = productRepository.findNextPage(ProductFilter.NONE, sortKey, direction, after, 2);
+            page.getContent().forEach(p -> ids.add(p.getId()));
+            after = page.isHasNext() ? ProductCursor.decode(page.getNext()) : null;
+        } while (page.isHasNext());
+        return ids;
+    }
+
 //    deleteById(id) - com um Id que não existe não lança exceção nas atualizações
 //    @Test
 //    void deleteShouldThrowEmptyResultDataAccessExceptionWhenIdDoesNotExist() {
@@ -0,0 +1,76 @@
+package com.samuel.loja.services;
+
+import com.samuel.loja.repository.ProductFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The paged listings must issue the same statements whatever the page size: a page of 25 rows
+ * costs no more round trips than a page of one. Both sizes are full pages, so the count query runs
+ * in both cases.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class PagingStatementCountIT {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void productPageShouldIssueTheSameStatementsForPageSizes1And25() {
+        long single = statements(() -> productService.findAllPaged(ProductFilter.NONE, PageRequest.of(0, 1)));
+        long full = statements(() -> productService.findAllPaged(ProductFilter.NONE, PageRequest.of(0, 25)));
+
+        assertEquals(2, single);
+        assertEquals(single, full);
+    }
+
+    @Test
+    void userPageShouldIssueTheSameStatementsForPageSizes1And25() {
+        // rolled back with the test: enough users, each with a role, to fill a page of 25
+        for (int i = 0; i < 25; i++) {
+            jdbcTemplate.update("INSERT INTO tb_user (first_name, last_name, email, password) VALUES ('User', ?, ?, 'x')",
+                String.valueOf(i), "user" + i + "@gmail.com");
+            jdbcTemplate.update("INSERT INTO tb_user_role (user_id, role_id) "
+                + "SELECT id, 1 FROM tb_user WHERE email = ?", "user" + i + "@gmail.com");
+        }
+
+        long single = statements(() -> userService.findAllPaged(PageRequest.of(0, 1)));
+        long full = statements(() -> userService.findAllPaged(PageRequest.of(0, 25)));
+
+        assertEquals(3, single);
+        assertEquals(single, full);
+    }
+
+    private long statements(Runnable listing) {
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
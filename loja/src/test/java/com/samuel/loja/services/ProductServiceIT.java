@@ -1,20 +1,47 @@
 package com.samuel.loja.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.loja.config.CacheConfig;
+import com.samuel.loja.dto.BulkResultDto;
+import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.CursorPageDto;
+import com.samuel.loja.dto.FacetedPageDto;
 import com.samuel.loja.dto.ProductDto;
 import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.dto.SliceDto;
+import com.samuel.loja.repository.ProductFilter;
+import com.samuel.loja.repository.ProductFilter.CategoryMatch;
 import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.repository.ProductSortKey;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
+import com.samuel.loja.tests.Factory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @SpringBootTest
 @Transactional
 public class ProductServiceIT {
@@ -25,6 +52,15 @@ public class ProductServiceIT {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalProducts;
@@ -40,7 +76,7 @@ public class ProductServiceIT {
     void findAllPagedShouldReturnPageWhenPage0Size10() {
         PageRequest pageRequest = PageRequest.of(0, 10);
 
-        Page<ProductListDto> page = productService.findAllPaged(pageRequest);
+        Page<ProductListDto> page = productService.findAllPaged(ProductFilter.NONE, pageRequest);
 
         assertFalse(page.isEmpty());
         assertEquals(0, page.getNumber());
@@ -52,7 +88,7 @@ public class ProductServiceIT {
     void findAllPagedShouldReturnEmptyPageWhenPageDoesNotExist() {
         PageRequest pageRequest = PageRequest.of(50, 10);
 
-        Page<ProductListDto> page = productService.findAllPaged(pageRequest);
+        Page<ProductListDto> page = productService.findAllPaged(ProductFilter.NONE, pageRequest);
 
         assertTrue(page.isEmpty());
     }
@@ -61,7 +97,7 @@ public class ProductServiceIT {
     void findAllPagedShouldReturnSortedPageWhenSortByName() {
         PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("name"));
 
-        Page<ProductListDto> page = productService.findAllPaged(pageRequest);
+        Page<ProductListDto> page = productService.findAllPaged(ProductFilter.NONE, pageRequest);
 
         assertFalse(page.isEmpty());
         assertEquals("Macbook Pro", page.getContent().get(0).getName());
@@ -69,6 +105,292 @@ public class ProductServiceIT {
         assertEquals("PC Gamer Alfa", page.getContent().get(2).getName());
     }
 
+    @Test
+    void findAllPagedShouldReturnProductsInAnyCategoryWhenMatchIsAny() {
+        ProductFilter filter = new ProductFilter(null, List.of(1L, 2L), CategoryMatch.ANY, null, null);
+
+        Page<ProductListDto> page = productService.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(1L, 2L, 5L), page.getContent().stream().map(ProductListDto::getId).toList());
+    }
+
+    @Test
+    void findAllPagedShouldReturnProductsInEveryCategoryWhenMatchIsAll() {
+        ProductFilter filter = new ProductFilter(null, List.of(1L, 3L), CategoryMatch.ALL, null, null);
+
+        Page<ProductListDto> page = productService.findAllPaged(filter, PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Smart TV", page.getContent().get(0).getName());
+    }
+
+    @Test
+    void findAllPagedShouldFilterByPriceRangeAndName() {
+        ProductFilter filter = new ProductFilter("gamer", null, null, new BigDecimal("1300"), new BigDecimal("1400"));
+
+        Page<ProductListDto> page = productService.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("name")));
+
+        assertEquals(List.of("PC Gamer Ex", "PC Gamer Plus", "PC Gamer X"),
+            page.getContent().stream().map(ProductListDto::getName).toList());
+    }
+
+    @Test
+    void browseShouldReturnProductsInCategoriesWithFacetCounts() {
+        FacetedPageDto<ProductListDto> page = productService.browse(List.of(3L), List.of(1L), 0, 5);
+
+        assertEquals(22, page.getTotalElements());
+        assertEquals(List.of(3L, 4L, 6L, 7L, 8L), page.getContent().stream().map(ProductListDto::getId).toList());
+        assertEquals(Map.of(3L, 22L), page.getFacets());
+    }
+
+    @Test
+    void findAllSlicedShouldReturnHasNextWithoutTotalWhenPage0Size10() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        SliceDto<ProductListDto> slice = productService.findAllSliced(ProductFilter.NONE, pageRequest, false);
+
+        assertEquals(10, slice.getContent().size());
+        assertTrue(slice.isHasNext());
+        assertNull(slice.getApproximateTotal());
+    }
+
+    @Test
+    void findAllSlicedShouldReturnNoNextWhenLastPage() {
+        PageRequest pageRequest = PageRequest.of(2, 10);
+
+        SliceDto<ProductListDto> slice = productService.findAllSliced(ProductFilter.NONE, pageRequest, false);
+
+        assertEquals(5, slice.getContent().size());
+        assertFalse(slice.isHasNext());
+    }
+
+    @Test
+    void findAllSlicedShouldApplyTheFilter() {
+        ProductFilter filter = new ProductFilter(null, List.of(1L, 2L), CategoryMatch.ANY, null, null);
+
+        SliceDto<ProductListDto> first = productService.findAllSliced(filter, PageRequest.of(0, 2, Sort.by("id")), false);
+        SliceDto<ProductListDto> last = productService.findAllSliced(filter, PageRequest.of(1, 2, Sort.by("id")), false);
+
+        assertEquals(List.of(1L, 2L), first.getContent().stream().map(ProductListDto::getId).toList());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(5L), last.getContent().stream().map(ProductListDto::getId).toList());
+        assertFalse(last.isHasNext());
+    }
+
+    @Test
+    void findAllSlicedShouldThrowIllegalArgumentExceptionWhenApproximateTotalIsFiltered() {
+        ProductFilter filter = new ProductFilter("gamer", null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                productService.findAllSliced(filter, PageRequest.of(0, 10), true));
+    }
+
+    @Test
+    void findAllByCursorShouldApplyTheFilter() {
+        ProductFilter filter = new ProductFilter(null, List.of(1L, 2L), CategoryMatch.ANY, null, null);
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        CursorPageDto<ProductListDto> page;
+        do {
+            page = productService.findAllByCursor(filter, after, 2, ProductSortKey.PRICE, Direction.ASC);
+            page.getContent().forEach(p -> ids.add(p.getId()));
+            after = page.getNext();
+        } while (page.isHasNext());
+
+        assertEquals(List.of(1L, 5L, 2L), ids);
+    }
+
+    @Test
+    void findAllByCursorShouldReturnSameOrderAsOffsetPaging() {
+        CursorPageDto<ProductListDto> page = productService.findAllByCursor(ProductFilter.NONE, null, 3, ProductSortKey.NAME, Direction.ASC);
+
+        assertTrue(page.isHasNext());
+        assertEquals("Macbook Pro", page.getContent().get(0).getName());
+        assertEquals("PC Gamer", page.getContent().get(1).getName());
+        assertEquals("PC Gamer Alfa", page.getContent().get(2).getName());
+
+        page = productService.findAllByCursor(ProductFilter.NONE, page.getNext(), 3, ProductSortKey.NAME, Direction.ASC);
+
+        assertEquals("PC Gamer Boo", page.getContent().get(0).getName());
+    }
+
+    @Test
+    void findAllByCursorShouldVisitEveryProductOnceWhenSortByPrice() {
+        Set<Long> ids = new HashSet<>();
+        String after = null;
+        CursorPageDto<ProductListDto> page;
+        do {
+            page = productService.findAllByCursor(ProductFilter.NONE, after, 4, ProductSortKey.PRICE, Direction.DESC);
+            page.getContent().forEach(p -> assertTrue(ids.add(p.getId())));
+            after = page.getNext();
+        } while (page.isHasNext());
+
+        assertEquals(countTotalProducts, ids.size());
+    }
+
+    @Test
+    void findAllByCursorShouldThrowIllegalArgumentExceptionWhenCursorDoesNotMatchSort() {
+        CursorPageDto<ProductListDto> page = productService.findAllByCursor(ProductFilter.NONE, null, 3, ProductSortKey.NAME, Direction.ASC);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                productService.findAllByCursor(ProductFilter.NONE, page.getNext(), 3, ProductSortKey.PRICE, Direction.ASC));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findByIdShouldCacheProductDtoWhenIdExists() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        cache.evict(existingId);
+
+        ProductDto result = productService.findById(existingId);
+
+        ProductDto cached = (ProductDto) cache.get(existingId).get();
+        assertNotSame(result, cached);
+        assertEquals(result.getEntityTag(), cached.getEntityTag());
+        assertEquals(result.getEntityTag(), productService.findById(existingId).getEntityTag());
+        cache.evict(existingId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findByIdShouldNotLetCallersChangeTheCachedProduct() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        cache.evict(existingId);
+
+        ProductDto result = productService.findById(existingId);
+        result.setName("Changed");
+        result.getCategories().get(0).setName("Changed");
+
+        ProductDto again = productService.findById(existingId);
+        assertEquals("The Lord of the Rings", again.getName());
+        assertEquals("Eletronicos", again.getCategories().get(0).getName());
+        cache.evict(existingId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void insertShouldCacheTheNewProductAndDeleteShouldEvictIt() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        ProductDto dto = Factory.createProductDto();
+        dto.setId(null);
+
+        ProductDto inserted = productService.insert(dto);
+        try {
+            assertEquals("PS5 Ultimate", ((ProductDto) cache.get(inserted.getId()).get()).getName());
+        } finally {
+            productService.delete(inserted.getId());
+        }
+
+        assertNull(cache.get(inserted.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> productService.findById(inserted.getId()));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void updateShouldEvictTheCachedProduct() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        cache.evict(existingId);
+        ProductDto product = productService.findById(existingId);
+        String name = product.getName();
+
+        try {
+            product.setName("The Hobbit");
+            productService.update(existingId, product);
+
+            assertNull(cache.get(existingId));
+            assertEquals("The Hobbit", productService.findById(existingId).getName());
+        } finally {
+            product.setName(name);
+            productService.update(existingId, product);
+        }
+        assertEquals(name, productService.findById(existingId).getName());
+        cache.evict(existingId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void categoryRenameShouldEvictOnlyTheProductsThatReferenceIt() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        cache.clear();
+        productService.findById(1L);
+        productService.findById(3L);
+
+        try {
+            categoryService.update(2L, new CategoryDto(2L, "Eletrônicos"));
+
+            assertNull(cache.get(1L));
+            assertNotNull(cache.get(3L));
+            assertEquals("Eletrônicos", productService.findById(1L).getCategories().get(0).getName());
+        } finally {
+            categoryService.update(2L, new CategoryDto(2L, "Eletronicos"));
+        }
+        assertEquals("Eletronicos", productService.findById(1L).getCategories().get(0).getName());
+        cache.clear();
+    }
+
+    @Test
+    void updateShouldChangeEntityTagWhenProductChanges() {
+        ProductDto before = productService.findById(existingId);
+        before.setName("Smart TV 4K");
+
+        productService.update(existingId, before);
+        productRepository.flush();
+        ProductDto after = productService.findById(existingId);
+
+        assertNotEquals(before.getEntityTag(), after.getEntityTag());
+        assertNotNull(after.getLastModified());
+    }
+
+    @Test
+    void updateShouldReturnTheEntityTagTheNextReadServes() {
+        ProductDto product = productService.findById(existingId);
+        product.setName("Smart TV 4K");
+
+        ProductDto updated = productService.update(existingId, product);
+
+        assertNotEquals(product.getEntityTag(), updated.getEntityTag());
+        assertEquals(productService.findById(existingId).getEntityTag(), updated.getEntityTag());
+        assertEquals(categoryService.update(1L, new CategoryDto(1L, "Livros")).getEntityTag(),
+            categoryService.findById(1L).getEntityTag());
+    }
+
+    @Test
+    void saveAllShouldSaveValidItemsAndReportInvalidOnes() {
+        ProductDto valid = bulkItem(null, "Teclado Mecânico", 2L);
+        ProductDto blankName = bulkItem(null, "", 2L);
+        ProductDto update = bulkItem(existingId, "The Lord of the Rings - Box", 1L);
+        ProductDto unknownId = bulkItem(nonExistingId, "Mouse", 2L);
+        ProductDto unknownCategory = bulkItem(null, "Monitor", 99L);
+
+        BulkResultDto result = productService.saveAll(List.of(valid, blankName, update, unknownId, unknownCategory));
+        productRepository.flush();
+
+        assertEquals(2, result.getSaved());
+        assertEquals(3, result.getFailed());
+        assertTrue(result.getItems().get(0).getErrors().isEmpty());
+        assertEquals("name", result.getItems().get(1).getErrors().get(0).getFieldName());
+        assertEquals(existingId, result.getItems().get(2).getId());
+        assertEquals("id", result.getItems().get(3).getErrors().get(0).getFieldName());
+        assertEquals("categories", result.getItems().get(4).getErrors().get(0).getFieldName());
+        assertEquals(countTotalProducts + 1, productRepository.count());
+        assertEquals("The Lord of the Rings - Box", productRepository.findById(existingId).get().getName());
+    }
+
+    @Test
+    void exportShouldWriteOneJsonLinePerProductWithCategories() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = productService.export(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(countTotalProducts, count);
+        assertEquals(countTotalProducts, lines.size());
+        ProductDto second = objectMapper.readValue(lines.get(1), ProductDto.class);
+        assertEquals("Smart TV", second.getName());
+        assertEquals(Set.of(1L, 3L), second.getCategories().stream().map(CategoryDto::getId).collect(Collectors.toSet()));
+    }
+
     @Test
     void deleteShouldDeleteResourceWhenIdExists() {
         productService.delete(existingId);
@@ -76,6 +398,15 @@ public class ProductServiceIT {
         assertEquals(countTotalProducts -1, productRepository.count());
     }
 
+    private ProductDto bulkItem(Long id, String name, Long categoryId) {
+        ProductDto dto = Factory.createProductDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setDate(Instant.now().plus(Duration.ofDays(1)));
+        dto.setCategories(new ArrayList<>(List.of(new CategoryDto(categoryId, null))));
+        return dto;
+    }
+
     @Test
     void deleteShouldThrowResourceNotFoundExceptionWhenIdDoesNotExist() {
         assertThrows(ResourceNotFoundException.class, () -> {
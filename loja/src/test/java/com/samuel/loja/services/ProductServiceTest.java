@@ -3,6 +3,7 @@ package com.samuel.loja.services;
 import com.samuel.loja.dto.ProductDto;
 import com.samuel.loja.dto.ProductListDto;
 import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.ProductFilter;
 import com.samuel.loja.repository.ProductRepository;
 import com.samuel.loja.services.exceptions.DataBaseException;
 import com.samuel.loja.services.exceptions.ResourceNotFoundException;
@@ -13,11 +14,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
@@ -35,10 +36,13 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private long existingId;
     private long nonExistingID;
     private long dependentID;
-    private PageImpl<Product> page;
+    private PageImpl<ProductListDto> page;
     private Product product;
     private ProductDto productDto;
 
@@ -51,14 +55,15 @@ class ProductServiceTest {
         product = Factory.createProduct();
         productDto = Factory.createProductDto();
 
-        page = new PageImpl<>(List.of(product));
+        page = new PageImpl<>(List.of(Factory.createProductListDto()));
 
-        when(productRepository.findAll((Pageable) ArgumentMatchers.any())).thenReturn(page);
+        when(productRepository.searchProductList(ArgumentMatchers.any())).thenReturn(page);
 
         when(productRepository.save(ArgumentMatchers.any())).thenReturn(product);
+        when(productRepository.saveAndFlush(ArgumentMatchers.any())).thenReturn(product);
 
-        when(productRepository.findById(existingId)).thenReturn(Optional.of(product));
-        when(productRepository.findById(nonExistingID)).thenReturn(Optional.empty());
+        when(productRepository.searchByIdWithCategories(existingId)).thenReturn(Optional.of(product));
+        when(productRepository.searchByIdWithCategories(nonExistingID)).thenReturn(Optional.empty());
 
     }
 
@@ -66,7 +71,7 @@ class ProductServiceTest {
     void findByIdShouldReturnProductDtoWhenIdExists() {
         ProductDto result = productService.findById(existingId);
         assertNotNull(result);
-        verify(productRepository).findById(existingId);
+        verify(productRepository).searchByIdWithCategories(existingId);
     }
 
     @Test
@@ -74,14 +79,14 @@ class ProductServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> {
             productService.findById(nonExistingID);
         });
-        verify(productRepository).findById(nonExistingID);
+        verify(productRepository).searchByIdWithCategories(nonExistingID);
     }
 
     @Test
     void updateShouldReturnProductDtoWhenIdExists() {
         ProductDto result = productService.update(existingId, productDto);
         assertNotNull(result);
-        verify(productRepository).findById(existingId);
+        verify(productRepository).searchByIdWithCategories(existingId);
     }
 
     @Test
@@ -89,16 +94,16 @@ class ProductServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> {
             productService.update(nonExistingID, productDto);
         });
-        verify(productRepository).findById(nonExistingID);
+        verify(productRepository).searchByIdWithCategories(nonExistingID);
     }
 
     @Test
     void findAllPagedShouldReturnPage() {
         PageRequest pageable = PageRequest.of(0, 10);
-        Page<ProductListDto> result = productService.findAllPaged(pageable);
+        Page<ProductListDto> result = productService.findAllPaged(ProductFilter.NONE, pageable);
 
         assertNotNull(result);
-        verify(productRepository).findAll(pageable);
+        verify(productRepository).searchProductList(pageable);
 
     }
 
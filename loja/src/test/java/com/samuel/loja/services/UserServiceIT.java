@@ -0,0 +1,120 @@
+package com.samuel.loja.services;
+
+import com.samuel.loja.config.CacheConfig;
+import com.samuel.loja.dto.RoleDTO;
+import com.samuel.loja.dto.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// not @Transactional: the caches are evicted after commit
+@SpringBootTest
+public class UserServiceIT {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.USER_DETAILS).clear();
+    }
+
+    @Test
+    public void loadUserByUsernameShouldServeRepeatedLoginsFromCache() {
+        double hits = userDetailsHits();
+
+        UserDetails first = userService.loadUserByUsername("maria@gmail.com");
+        UserDetails second = userService.loadUserByUsername("maria@gmail.com");
+
+        assertSame(first, second);
+        assertEquals(2, second.getAuthorities().size());
+        assertEquals(hits + 1, userDetailsHits());
+    }
+
+    @Test
+    public void loadUserByUsernameShouldNotCacheUnknownEmail() {
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("nobody@gmail.com"));
+
+        assertNull(cacheManager.getCache(CacheConfig.USER_DETAILS).get("nobody@gmail.com"));
+    }
+
+    @Test
+    public void updateShouldEvictCachedUserDetails() {
+        UserDetails cached = userService.loadUserByUsername("alex@gmail.com");
+        assertEquals(1, cached.getAuthorities().size());
+
+        try {
+            userService.update(1L, alex(new RoleDTO(1L, "ROLE_OPERATOR"), new RoleDTO(2L, "ROLE_ADMIN")));
+
+            assertEquals(2, userService.loadUserByUsername("alex@gmail.com").getAuthorities().size());
+        } finally {
+            userService.update(1L, alex(new RoleDTO(1L, "ROLE_OPERATOR")));
+        }
+    }
+
+    @Test
+    public void updatePasswordShouldStoreTheNewHashAndEvictCachedUserDetails() {
+        UserDetails cached = userService.loadUserByUsername("alex@gmail.com");
+        String upgraded = passwordEncoder.encode("123456");
+
+        try {
+            UserDetails updated = userService.updatePassword(cached, upgraded);
+
+            assertEquals(upgraded, updated.getPassword());
+            UserDetails reloaded = userService.loadUserByUsername("alex@gmail.com");
+            assertNotSame(cached, reloaded);
+            assertEquals(upgraded, reloaded.getPassword());
+            assertTrue(passwordEncoder.matches("123456", reloaded.getPassword()));
+        } finally {
+            userService.updatePassword(cached, cached.getPassword());
+        }
+    }
+
+    @Test
+    public void profileCacheShouldNotLetCallersChangeTheCachedProfile() {
+        Cache profiles = cacheManager.getCache(CacheConfig.USERS);
+        profiles.put("alex@gmail.com", alex(new RoleDTO(1L, "ROLE_OPERATOR")));
+
+        try {
+            UserDto first = profiles.get("alex@gmail.com", UserDto.class);
+            first.setFirstName("Changed");
+            first.getRoles().iterator().next().setAuthority("ROLE_ADMIN");
+
+            UserDto second = profiles.get("alex@gmail.com", UserDto.class);
+            assertNotSame(first, second);
+            assertEquals("Alex", second.getFirstName());
+            assertEquals("ROLE_OPERATOR", second.getRoles().iterator().next().getAuthority());
+        } finally {
+            profiles.evict("alex@gmail.com");
+        }
+    }
+
+    private double userDetailsHits() {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.USER_DETAILS).tag("result", "hit")
+            .functionCounter().count();
+    }
+
+    private static UserDto alex(RoleDTO... roles) {
+        return new UserDto(1L, "Alex", "Brown", "alex@gmail.com", Set.of(roles));
+    }
+}
@@ -0,0 +1,71 @@
+package com.samuel.loja.services.imports;
+
+import com.samuel.loja.dto.ImportReportDto;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class ProductCsvImporterIT {
+
+    @Autowired
+    private ProductCsvImporter importer;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private long countTotalProducts;
+    private String future;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        countTotalProducts = 25L;
+        future = Instant.now().plus(Duration.ofDays(30)).toString();
+    }
+
+    @Test
+    void importCsvShouldInsertValidRowsAndReportRejectedOnes() throws Exception {
+        String csv = "name,description,price,imgUrl,date,categories\n"
+            + "Teclado,\"Teclado mecânico, ABNT2\",250.0,http://img.com/teclado.jpg," + future + ",eletronicos|Computadores\n"
+            + "\n"
+            + "Mouse,Mouse sem fio,-10,http://img.com/mouse.jpg," + future + ",Eletronicos\n"
+            + "Livro,Romance,abc,http://img.com/livro.jpg," + future + ",Livros\n"
+            + "Cadeira,Cadeira gamer,900,http://img.com/cadeira.jpg," + future + ",Moveis\n";
+
+        ImportReportDto report = importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        productRepository.flush();
+
+        assertEquals(4, report.getRead());
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(4L, 5L, 6L), report.getRejections().stream().map(ImportReportDto.RejectedRow::getLine).toList());
+        assertEquals("price", report.getRejections().get(1).getErrors().get(0).getFieldName());
+        assertEquals("categories", report.getRejections().get(2).getErrors().get(0).getFieldName());
+        assertEquals(countTotalProducts + 1, productRepository.count());
+
+        Product product = productRepository.searchByIdWithCategories(countTotalProducts + 1).orElseThrow();
+        assertEquals("Teclado mecânico, ABNT2", product.getDescription());
+        assertEquals(2, product.getCategories().size());
+    }
+
+    @Test
+    void importCsvShouldThrowIllegalArgumentExceptionWhenColumnsAreMissing() {
+        String csv = "name,price\nTeclado,250.0\n";
+
+        assertThrows(IllegalArgumentException.class,
+            () -> importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,86 @@
+package com.samuel.loja.services.imports;
+
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+import com.samuel.loja.services.search.CategoryBitmapIndex;
+import com.samuel.loja.services.search.ProductNameSuggester;
+import com.samuel.loja.services.search.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// its own database: the imported rows must not reach the other tests
+@SpringBootTest(args = "--import-products=src/test/resources/imports/products.csv",
+    properties = "spring.datasource.url=jdbc:h2:mem:productimportrunner")
+public class ProductImportRunnerIT {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductNameSuggester suggester;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Autowired
+    private BufferedChanges bufferedChanges;
+
+    @Test
+    void startupImportShouldRunAfterTheIndexesAreBuilt() {
+        assertEquals(28, productRepository.count());
+        assertEquals(0, bufferedChanges.max.get());
+
+        assertEquals(28, searchIndex.size());
+        assertEquals(28, suggester.size());
+        assertEquals(28, categoryIndex.size());
+        assertEquals(List.of("Teclado Mecânico"), suggester.suggest("tecl", 10));
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        BufferedChanges bufferedChanges() {
+            return new BufferedChanges();
+        }
+    }
+
+    // the most changes any index held back when an imported product was committed
+    static class BufferedChanges {
+
+        private final AtomicInteger max = new AtomicInteger();
+
+        @Autowired
+        private ProductSearchIndex searchIndex;
+
+        @Autowired
+        private ProductNameSuggester suggester;
+
+        @Autowired
+        private CategoryBitmapIndex categoryIndex;
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onProductChanged(ProductChangedEvent event) {
+            for (Object index : List.of(searchIndex, suggester, categoryIndex)) {
+                Object changes = ReflectionTestUtils.getField(index, "changes");
+                List<?> pending = (List<?>) ReflectionTestUtils.getField(changes, "pending");
+                if (pending != null) {
+                    max.accumulateAndGet(pending.size(), Math::max);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.samuel.loja.services.search;
+
+import com.samuel.loja.dto.CategoryDto;
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryBitmapIndexTest {
+
+    private CategoryBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategoryBitmapIndex();
+        index.put(1L, List.of(1L, 2L));
+        index.put(2L, List.of(1L));
+        index.put(3L, List.of(1L, 2L, 3L));
+        index.put(4L, List.of(3L));
+    }
+
+    @Test
+    void selectShouldReturnProductsInAllRequiredCategoriesAndNoExcludedOne() {
+        CategoryBitmapIndex.Selection selection = index.select(List.of(1L, 2L), List.of(3L), 0, 10);
+
+        assertEquals(List.of(1L), selection.ids());
+        assertEquals(1, selection.total());
+        assertEquals(Map.of(1L, 1L, 2L, 1L), selection.facets());
+    }
+
+    @Test
+    void selectShouldCountFacetsOverWholeResultWhenPaging() {
+        CategoryBitmapIndex.Selection selection = index.select(List.of(), List.of(), 1, 2);
+
+        assertEquals(List.of(2L, 3L), selection.ids());
+        assertEquals(4, selection.total());
+        assertEquals(Map.of(1L, 3L, 2L, 2L, 3L, 2L), selection.facets());
+    }
+
+    @Test
+    void selectShouldReflectUpdatesAndRemovals() {
+        index.put(2L, List.of(3L));
+        index.remove(4L);
+
+        assertEquals(List.of(2L, 3L), index.select(List.of(3L), List.of(), 0, 10).ids());
+        assertTrue(index.select(List.of(), List.of(), 3, 10).ids().isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void selectShouldReturnEmptyResultWhenCategoryIsUnknown() {
+        CategoryBitmapIndex.Selection selection = index.select(List.of(99L), List.of(), 0, 10);
+
+        assertTrue(selection.ids().isEmpty());
+        assertTrue(selection.facets().isEmpty());
+    }
+
+    @Test
+    void buildShouldApplyChangesCommittedWhileTheSnapshotWasRead() {
+        CategoryBitmapIndex built = new CategoryBitmapIndex();
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        ReflectionTestUtils.setField(built, "repository", repository);
+        ReflectionTestUtils.setField(built, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        Mockito.when(repository.streamCategoryMemberships()).thenAnswer(invocation -> {
+            // committed after the rows below were read
+            built.onProductChanged(ProductChangedEvent.saved(product(1L, 3L)));
+            built.onProductChanged(ProductChangedEvent.deleted(2L));
+            return Stream.of(new Object[] {1L, 1L}, new Object[] {1L, 2L}, new Object[] {2L, 1L});
+        });
+
+        built.build();
+        built.onProductChanged(ProductChangedEvent.saved(product(4L, 1L)));
+
+        CategoryBitmapIndex.Selection selection = built.select(List.of(), List.of(), 0, 10);
+        assertEquals(List.of(1L, 4L), selection.ids());
+        assertEquals(Map.of(1L, 1L, 3L, 1L), selection.facets());
+    }
+
+    @Test
+    void selectShouldNotWaitForTheBuildScan() throws Exception {
+        CategoryBitmapIndex built = new CategoryBitmapIndex();
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        ReflectionTestUtils.setField(built, "repository", repository);
+        ReflectionTestUtils.setField(built, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Mockito.when(repository.streamCategoryMemberships()).thenAnswer(invocation ->
+                Stream.of(new Object[] {1L, 1L}, new Object[] {2L, 1L}).peek(row -> assertDoesNotThrow(() ->
+                    // another browse request, while the build is still reading rows
+                    reader.submit(() -> built.select(List.of(), List.of(), 0, 10)).get(5, TimeUnit.SECONDS))));
+
+            built.build();
+        } finally {
+            reader.shutdownNow();
+        }
+
+        assertEquals(List.of(1L, 2L), built.select(List.of(1L), List.of(), 0, 10).ids());
+    }
+
+    private static ProductDto product(Long id, Long categoryId) {
+        CategoryDto category = new CategoryDto();
+        category.setId(categoryId);
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.getCategories().add(category);
+        return product;
+    }
+}
@@ -0,0 +1,151 @@
+package com.samuel.loja.services.search;
+
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNameSuggesterTest {
+
+    private ProductNameSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new ProductNameSuggester();
+        suggester.put(1L, "Smart TV");
+        suggester.put(2L, "PC Gamer");
+        suggester.put(3L, "Monitor Gamer");
+        suggester.put(4L, "Câmera Digital");
+    }
+
+    @Test
+    void suggestShouldMatchStartOfAnyWordIgnoringCaseAndAccents() {
+        assertEquals(List.of("PC Gamer", "Monitor Gamer"), suggester.suggest("GAM", 10));
+        assertEquals(List.of("Câmera Digital"), suggester.suggest("came", 10));
+    }
+
+    @Test
+    void suggestShouldRespectLimit() {
+        assertEquals(1, suggester.suggest("gamer", 1).size());
+    }
+
+    @Test
+    void suggestShouldReflectUpdatesAndRemovals() {
+        suggester.put(1L, "Smart TV OLED");
+        suggester.remove(2L);
+
+        assertEquals(List.of("Smart TV OLED"), suggester.suggest("smart", 10));
+        assertEquals(List.of("Monitor Gamer"), suggester.suggest("gamer", 10));
+        assertEquals(3, suggester.size());
+    }
+
+    @Test
+    void suggestShouldRankNamesStartingWithThePrefixFirstThenShorterNames() {
+        suggester.put(5L, "Gamepad");
+        suggester.put(6L, "Cadeira Gamer Reclinável");
+
+        assertEquals(List.of("Gamepad", "PC Gamer", "Monitor Gamer", "Cadeira Gamer Reclinável"),
+            suggester.suggest("gam", 10));
+    }
+
+    @Test
+    void suggestShouldMatchPrefixOfSeveralWords() {
+        suggester.put(5L, "Smart Watch");
+
+        assertEquals(List.of("Smart TV"), suggester.suggest("smart t", 10));
+        assertEquals(List.of("Monitor Gamer"), suggester.suggest("monitor gam", 10));
+        assertTrue(suggester.suggest("tv smart", 10).isEmpty());
+    }
+
+    @Test
+    void suggestShouldMatchAFullScanAfterUpdatesAndRemovals() {
+        String[] words = {"Gamer", "Game", "Gabinete", "Monitor", "Mouse", "Teclado", "Tela", "PC"};
+        Random random = new Random(42);
+        Map<Long, String> names = new HashMap<>();
+        ProductNameSuggester many = new ProductNameSuggester();
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                many.remove(id);
+                names.remove(id);
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + id;
+                many.put(id, name);
+                names.put(id, name);
+            }
+        }
+
+        for (String prefix : List.of("g", "ga", "game", "gamer", "m", "t", "pc", "1", "12")) {
+            for (int limit : List.of(1, ProductNameSuggester.TOP_K, 50)) {
+                assertEquals(fullScan(names, prefix, limit), many.suggest(prefix, limit), prefix + " " + limit);
+            }
+        }
+    }
+
+    @Test
+    void suggestShouldReturnEmptyListWhenPrefixIsBlank() {
+        assertTrue(suggester.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void buildShouldApplyChangesCommittedWhileTheSnapshotWasRead() {
+        ProductNameSuggester built = new ProductNameSuggester();
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        ReflectionTestUtils.setField(built, "repository", repository);
+        ReflectionTestUtils.setField(built, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        Mockito.when(repository.streamNames()).thenAnswer(invocation -> {
+            // committed after the rows below were read
+            built.onProductChanged(ProductChangedEvent.saved(product(1L, "Smart TV OLED")));
+            built.onProductChanged(ProductChangedEvent.deleted(2L));
+            return Stream.of(new Object[] {1L, "Smart TV"}, new Object[] {2L, "PC Gamer"});
+        });
+
+        built.build();
+        built.onProductChanged(ProductChangedEvent.saved(product(3L, "Monitor Gamer")));
+
+        assertEquals(2, built.size());
+        assertEquals(List.of("Smart TV OLED"), built.suggest("smart", 10));
+        assertEquals(List.of("Monitor Gamer"), built.suggest("gamer", 10));
+    }
+
+    // names with a word starting with the prefix: starting with it first, then shorter, then by id
+    private static List<String> fullScan(Map<Long, String> names, String prefix, int limit) {
+        List<Map.Entry<Long, String>> matches = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            for (String word : entry.getValue().toLowerCase().split(" ")) {
+                if (word.startsWith(prefix)) {
+                    matches.add(entry);
+                    break;
+                }
+            }
+        }
+        matches.sort(Comparator.<Map.Entry<Long, String>, Boolean>comparing(entry ->
+                !entry.getValue().toLowerCase().startsWith(prefix))
+            .thenComparing(entry -> entry.getValue().length())
+            .thenComparing(Map.Entry::getKey));
+        return new ArrayList<>(new LinkedHashSet<>(matches.stream().map(Map.Entry::getValue).limit(limit).toList()));
+    }
+
+    private static ProductDto product(Long id, String name) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
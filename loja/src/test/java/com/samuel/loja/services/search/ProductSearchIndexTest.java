@@ -0,0 +1,96 @@
+package com.samuel.loja.services.search;
+
+import com.samuel.loja.dto.ProductDto;
+import com.samuel.loja.dto.ProductListDto;
+import com.samuel.loja.entities.Product;
+import com.samuel.loja.repository.ProductRepository;
+import com.samuel.loja.services.events.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(product(1L, "Smart TV"), "Televisão com resolução 4K e acesso à internet");
+        index.index(product(2L, "PC Gamer"), "Computador para jogos com placa de vídeo dedicada");
+        index.index(product(3L, "Monitor Gamer"), "Monitor para computador com alta taxa de atualização");
+    }
+
+    @Test
+    void searchShouldMatchAccentedTextWhenQueryHasNoAccents() {
+        List<ProductListDto> result = index.search("televisao resolucao", 10);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getId());
+    }
+
+    @Test
+    void searchShouldRankNameMatchesAboveDescriptionMatches() {
+        List<ProductListDto> result = index.search("computador gamer", 10);
+
+        assertEquals(List.of(2L, 3L), result.stream().map(ProductListDto::getId).toList());
+    }
+
+    @Test
+    void searchShouldReflectUpdatesAndRemovals() {
+        index.index(product(1L, "Smart TV OLED"), "Tela OLED");
+        index.remove(2L);
+
+        assertTrue(index.search("internet", 10).isEmpty());
+        assertEquals(1L, index.search("oled", 10).get(0).getId());
+        assertEquals(List.of(3L), index.search("gamer", 10).stream().map(ProductListDto::getId).toList());
+    }
+
+    @Test
+    void buildShouldApplyChangesCommittedWhileTheSnapshotWasRead() {
+        ProductSearchIndex built = new ProductSearchIndex();
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        ReflectionTestUtils.setField(built, "repository", repository);
+        ReflectionTestUtils.setField(built, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        Mockito.when(repository.streamSearchDocuments()).thenAnswer(invocation -> {
+            // committed after the rows below were read
+            built.onProductChanged(ProductChangedEvent.saved(new ProductDto(entity(1L, "Smart TV OLED", "Tela OLED"))));
+            built.onProductChanged(ProductChangedEvent.deleted(2L));
+            return Stream.of(row(1L, "Smart TV", "Acesso à internet"), row(2L, "PC Gamer", "Computador"));
+        });
+
+        built.build();
+        built.onProductChanged(ProductChangedEvent.saved(new ProductDto(entity(3L, "Monitor Gamer", "Monitor"))));
+
+        assertEquals(2, built.size());
+        assertTrue(built.search("internet", 10).isEmpty());
+        assertEquals(1L, built.search("oled", 10).get(0).getId());
+        assertEquals(List.of(3L), built.search("gamer", 10).stream().map(ProductListDto::getId).toList());
+    }
+
+    @Test
+    void searchShouldReturnEmptyListWhenQueryHasOnlyStopwords() {
+        assertTrue(index.search("de para com", 10).isEmpty());
+    }
+
+    private static Object[] row(Long id, String name, String description) {
+        return new Object[] {id, name, BigDecimal.TEN, "http://img.com.br/" + id + ".jpg", description};
+    }
+
+    private static Product entity(Long id, String name, String description) {
+        return new Product(id, name, description, BigDecimal.TEN, "http://img.com.br/" + id + ".jpg", Instant.now());
+    }
+
+    private static ProductListDto product(Long id, String name) {
+        return new ProductListDto(id, name, BigDecimal.TEN, "http://img.com.br/" + id + ".jpg");
+    }
+}